@@ -0,0 +1,663 @@
+package com.aibuilder.benchmark;
+
+import com.aibuilder.model.Primitive;
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.EnhancedResponseProcessor;
+import com.aibuilder.processor.PrimitiveExpander;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The multi-strategy parser the plugin used before the single tolerant pass, kept only as the benchmark baseline
+ */
+final class CascadeResponseProcessor {
+
+    private final Logger logger;
+    private final Gson gson = new Gson();
+    private final JsonFactory jsonFactory;
+    private final EnhancedResponseProcessor fallback;
+
+    CascadeResponseProcessor(Logger logger) {
+        this.logger = logger;
+        this.jsonFactory = new JsonFactory();
+        // Enable comments in JSON parsing
+        this.jsonFactory.enable(JsonParser.Feature.ALLOW_COMMENTS);
+        this.jsonFactory.enable(JsonParser.Feature.ALLOW_YAML_COMMENTS);
+        this.fallback = new EnhancedResponseProcessor(logger);
+    }
+
+    /**
+     * Try each parsing strategy in turn, ending with the production processor's fallback structure
+     */
+    StructureData processResponseCascade(String response, String originalPrompt) {
+        logger.info("Processing AI response (" + response.length() + " characters)");
+        
+        // Check if response looks truncated
+        if (isTruncatedResponse(response)) {
+            logger.warning("Response appears to be truncated, will attempt repair");
+        }
+        
+        // Strategy 1: Direct JSON parsing
+        try {
+            StructureData result = expandPrimitives(parseDirectJson(response));
+            if (result != null && isValidStructure(result)) {
+                logger.info("Successfully parsed using direct JSON strategy");
+                return result;
+            }
+        } catch (Exception e) {
+            logger.warning("Direct JSON parsing failed: " + e.getMessage());
+        }
+
+        // Strategy 2: Extract JSON from markdown/text
+        try {
+            StructureData result = expandPrimitives(parseExtractedJson(response));
+            if (result != null && isValidStructure(result)) {
+                logger.info("Successfully parsed using JSON extraction strategy");
+                return result;
+            }
+        } catch (Exception e) {
+            logger.warning("JSON extraction parsing failed: " + e.getMessage());
+        }
+        
+        // Strategy 3: Streaming JSON parser for large responses
+        try {
+            StructureData result = expandPrimitives(parseStreamingJson(response));
+            if (result != null && isValidStructure(result)) {
+                logger.info("Successfully parsed using streaming JSON strategy");
+                return result;
+            }
+        } catch (Exception e) {
+            logger.warning("Streaming JSON parsing failed: " + e.getMessage());
+        }
+        
+        // Strategy 4: Repair and retry
+        try {
+            StructureData result = expandPrimitives(parseRepairedJson(response));
+            if (result != null && isValidStructure(result)) {
+                logger.info("Successfully parsed using JSON repair strategy");
+                return result;
+            }
+        } catch (Exception e) {
+            logger.warning("JSON repair parsing failed: " + e.getMessage());
+        }
+        
+        // Strategy 5: Generate fallback structure
+        logger.warning("All parsing strategies failed, generating fallback structure");
+        return fallback.processResponse("", originalPrompt);
+    }
+    
+    /**
+     * Expand shape primitives into blocks so validation sees the full structure
+     */
+    private StructureData expandPrimitives(StructureData structure) {
+        if (structure != null && structure.getPrimitives() != null && !structure.getPrimitives().isEmpty()) {
+            PrimitiveExpander expander = new PrimitiveExpander();
+            int primitiveCount = structure.getPrimitives().size();
+            expander.expandInto(structure);
+            logger.info("Expanded " + primitiveCount + " primitives into " + structure.getBlocks().size() + " blocks" +
+                (expander.getSkippedCount() > 0 ? " (" + expander.getSkippedCount() + " malformed primitives skipped)" : ""));
+        }
+        return structure;
+    }
+    
+    /**
+     * Check if the response appears to be truncated
+     */
+    private boolean isTruncatedResponse(String response) {
+        if (response == null || response.length() < 100) {
+            return true;
+        }
+        
+        String cleaned = cleanResponse(response);
+        
+        // Check for common signs of truncation
+        return cleaned.endsWith(",") || // Ends with comma
+               cleaned.matches(".*\"[^\"]*$") || // Ends with unterminated string
+               (cleaned.contains("blocks") && cleaned.contains("[") && !cleaned.contains("]")) || // Blocks array not closed
+               countChar(cleaned, '{') > countChar(cleaned, '}') || // Unmatched braces
+               countChar(cleaned, '[') > countChar(cleaned, ']'); // Unmatched brackets
+    }
+
+    /**
+     * Parse JSON directly
+     */
+    private StructureData parseDirectJson(String response) {
+        String cleaned = cleanResponse(response);
+        return gson.fromJson(cleaned, StructureData.class);
+    }
+
+    /**
+     * Extract and parse JSON from markdown or mixed content
+     */
+    private StructureData parseExtractedJson(String response) {
+        String jsonContent = extractJsonFromResponse(response);
+        if (jsonContent != null) {
+            return gson.fromJson(jsonContent, StructureData.class);
+        }
+        return null;
+    }
+
+    /**
+     * Use streaming JSON parser for large responses
+     */
+    private StructureData parseStreamingJson(String response) throws Exception {
+        String cleaned = cleanResponse(response);
+        JsonParser parser = jsonFactory.createParser(cleaned);
+        
+        String name = null;
+        String description = null;
+        StructureData.Size size = null;
+        List<StructureData.Block> blocks = new ArrayList<>();
+        List<Primitive> primitives = new ArrayList<>();
+        
+        try {
+            while (parser.nextToken() != null && parser.getCurrentToken() != JsonToken.END_OBJECT) {
+                String fieldName = parser.getCurrentName();
+                
+                if ("name".equals(fieldName)) {
+                    parser.nextToken();
+                    name = parser.getValueAsString();
+                } else if ("description".equals(fieldName)) {
+                    parser.nextToken();
+                    description = parser.getValueAsString();
+                } else if ("size".equals(fieldName)) {
+                    parser.nextToken();
+                    size = parseSize(parser);
+                } else if ("blocks".equals(fieldName)) {
+                    parser.nextToken();
+                    blocks = parseBlocksArraySafely(parser);
+                } else if ("primitives".equals(fieldName)) {
+                    parser.nextToken();
+                    primitives = parsePrimitivesArraySafely(parser);
+                }
+            }
+        } catch (Exception e) {
+            // If parsing fails partway through, we might still have some useful data
+            logger.warning("Streaming parser encountered error: " + e.getMessage() + 
+                                     ", attempting to use partial data");
+        } finally {
+            parser.close();
+        }
+        
+        // Even if parsing failed, try to create a structure with what we have
+        if (name != null && (!blocks.isEmpty() || !primitives.isEmpty())) {
+            StructureData result = new StructureData();
+            result.setName(name);
+            result.setDescription(description != null ? description : "AI Generated Structure");
+            result.setBlocks(blocks);
+            result.setPrimitives(primitives);
+            expandPrimitives(result);
+            result.setSize(size != null ? size : calculateSize(result.getBlocks()));
+            
+            logger.info("Streaming parser recovered " + result.getBlocks().size() + " blocks");
+            return result;
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Parse blocks array with error recovery
+     */
+    private List<StructureData.Block> parseBlocksArraySafely(JsonParser parser) throws Exception {
+        List<StructureData.Block> blocks = new ArrayList<>();
+        
+        try {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    try {
+                        StructureData.Block block = parseBlockObject(parser);
+                        if (block != null && block.getMaterial() != null) {
+                            blocks.add(block);
+                        }
+                    } catch (Exception e) {
+                        // Skip this block and continue with the next one
+                        logger.fine("Skipped malformed block: " + e.getMessage());
+                        skipToNextObject(parser);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Array might be truncated, return what we have
+            logger.warning("Blocks array parsing incomplete: " + e.getMessage() + 
+                                     ", recovered " + blocks.size() + " blocks");
+        }
+        
+        return blocks;
+    }
+    
+    /**
+     * Parse a single block object
+     */
+    private StructureData.Block parseBlockObject(JsonParser parser) throws Exception {
+        StructureData.Block block = new StructureData.Block();
+        
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            
+            switch (fieldName) {
+                case "x" -> block.setX(parser.getValueAsInt());
+                case "y" -> block.setY(parser.getValueAsInt());
+                case "z" -> block.setZ(parser.getValueAsInt());
+                case "material" -> block.setMaterial(parser.getValueAsString());
+                case "data" -> block.setData(parser.getValueAsString());
+            }
+        }
+        
+        return block;
+    }
+    
+    /**
+     * Parse primitives array with error recovery
+     */
+    private List<Primitive> parsePrimitivesArraySafely(JsonParser parser) throws Exception {
+        List<Primitive> primitives = new ArrayList<>();
+        
+        try {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    try {
+                        Primitive primitive = parsePrimitiveObject(parser);
+                        if (primitive.getType() != null && primitive.getMaterial() != null) {
+                            primitives.add(primitive);
+                        }
+                    } catch (Exception e) {
+                        logger.fine("Skipped malformed primitive: " + e.getMessage());
+                        skipToNextObject(parser);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Array might be truncated, return what we have
+            logger.warning("Primitives array parsing incomplete: " + e.getMessage() + 
+                                     ", recovered " + primitives.size() + " primitives");
+        }
+        
+        return primitives;
+    }
+    
+    /**
+     * Parse a single primitive object
+     */
+    private Primitive parsePrimitiveObject(JsonParser parser) throws Exception {
+        Primitive primitive = new Primitive();
+        
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            
+            switch (fieldName) {
+                case "type" -> primitive.setType(parser.getValueAsString());
+                case "from" -> primitive.setFrom(parsePoint(parser));
+                case "to" -> primitive.setTo(parsePoint(parser));
+                case "at" -> primitive.setAt(parsePoint(parser));
+                case "material" -> primitive.setMaterial(parser.getValueAsString());
+                case "data" -> primitive.setData(parser.getValueAsString());
+                default -> parser.skipChildren();
+            }
+        }
+        
+        return primitive;
+    }
+    
+    /**
+     * Parse an [x, y, z] coordinate array
+     */
+    private int[] parsePoint(JsonParser parser) throws Exception {
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        int[] point = new int[3];
+        int index = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (index < 3) {
+                point[index] = parser.getValueAsInt();
+            }
+            index++;
+        }
+        return index >= 3 ? point : null;
+    }
+    
+    /**
+     * Skip to the next object when parsing fails
+     */
+    private void skipToNextObject(JsonParser parser) throws Exception {
+        int depth = 0;
+        do {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                depth++;
+            } else if (token == JsonToken.END_OBJECT) {
+                depth--;
+            }
+        } while (depth > 0 && parser.getCurrentToken() != null);
+    }
+
+    /**
+     * Attempt to repair malformed JSON
+     */
+    private StructureData parseRepairedJson(String response) {
+        String cleaned = cleanResponse(response);
+        String repaired = repairJson(cleaned);
+        
+        if (!repaired.equals(cleaned)) {
+            logger.info("Attempting to parse repaired JSON");
+            return gson.fromJson(repaired, StructureData.class);
+        }
+        
+        return null;
+    }
+
+    /**
+     * Clean response from markdown and other formatting
+     */
+    String cleanResponse(String response) {
+        if (response == null) return "{}";
+        
+        String cleaned = response.trim();
+        
+        // Remove markdown code blocks
+        cleaned = cleaned.replaceAll("```json\\s*", "");
+        cleaned = cleaned.replaceAll("```\\s*$", "");
+        
+        // Remove comments (// style comments) - line by line to preserve structure
+        String[] lines = cleaned.split("\n");
+        StringBuilder result = new StringBuilder();
+        
+        for (String line : lines) {
+            // Find // comments but not inside strings
+            int commentStart = findCommentStart(line);
+            if (commentStart >= 0) {
+                line = line.substring(0, commentStart).trim();
+            }
+            
+            // Only add non-empty lines
+            if (!line.trim().isEmpty()) {
+                result.append(line).append("\n");
+            }
+        }
+        
+        cleaned = result.toString();
+        
+        // Remove any text before the first {
+        int firstBrace = cleaned.indexOf('{');
+        if (firstBrace > 0) {
+            cleaned = cleaned.substring(firstBrace);
+        }
+        
+        // Remove any text after the last }
+        int lastBrace = cleaned.lastIndexOf('}');
+        if (lastBrace >= 0 && lastBrace < cleaned.length() - 1) {
+            cleaned = cleaned.substring(0, lastBrace + 1);
+        }
+        
+        return cleaned;
+    }
+    
+    /**
+     * Find the start of a comment, being careful not to find // inside strings
+     */
+    private int findCommentStart(String line) {
+        boolean inString = false;
+        boolean escapeNext = false;
+        
+        for (int i = 0; i < line.length() - 1; i++) {
+            char c = line.charAt(i);
+            char next = line.charAt(i + 1);
+            
+            if (escapeNext) {
+                escapeNext = false;
+                continue;
+            }
+            
+            if (c == '\\') {
+                escapeNext = true;
+                continue;
+            }
+            
+            if (c == '"') {
+                inString = !inString;
+                continue;
+            }
+            
+            if (!inString && c == '/' && next == '/') {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+
+    /**
+     * Extract JSON content using regex patterns
+     */
+    private String extractJsonFromResponse(String response) {
+        // Pattern to match JSON object
+        Pattern jsonPattern = Pattern.compile("\\{[^{}]*(?:\\{[^{}]*\\}[^{}]*)*\\}", Pattern.DOTALL);
+        Matcher matcher = jsonPattern.matcher(response);
+        
+        if (matcher.find()) {
+            return matcher.group();
+        }
+        
+        return null;
+    }
+
+    /**
+     * Repair common JSON issues
+     */
+    String repairJson(String json) {
+        if (json == null) return "{}";
+        
+        String original = json;
+        
+        // Remove any incomplete elements at the end that might cause parsing issues
+        json = removeIncompleteElements(json);
+        
+        // Fix trailing commas
+        json = json.replaceAll(",\\s*([}\\]])", "$1");
+        
+        // Fix unescaped quotes in strings
+        json = json.replaceAll("(?<!\\\\)\"([^\"]*?)(?<!\\\\)\"([^\":,}\\]]*?)\"", "\"$1\\\\\"$2\"");
+        
+        // Fix unterminated strings by adding closing quote if needed
+        if (json.contains("\"") && !isBalancedQuotes(json)) {
+            // Find the last unmatched quote and close it
+            int lastQuote = json.lastIndexOf('"');
+            if (lastQuote > 0) {
+                String beforeQuote = json.substring(0, lastQuote);
+                if (!isBalancedQuotes(beforeQuote)) {
+                    json = json + "\"";
+                }
+            }
+        }
+        
+        // Ensure proper closure of arrays and objects
+        while (countChar(json, '{') > countChar(json, '}')) {
+            json += "}";
+        }
+        
+        while (countChar(json, '[') > countChar(json, ']')) {
+            json += "]";
+        }
+        
+        // If the repair significantly changed the JSON, log it
+        if (json.length() != original.length()) {
+            logger.info("Repaired JSON: removed " + (original.length() - json.length()) + " characters");
+        }
+        
+        return json;
+    }
+    
+    /**
+     * Remove incomplete JSON elements that could cause parsing failures
+     */
+    private String removeIncompleteElements(String json) {
+        // Look for common patterns of incomplete elements
+        
+        // Remove incomplete objects that don't have closing braces
+        json = json.replaceAll(",\\s*\\{[^}]*$", "");
+        
+        // Remove incomplete array elements
+        json = json.replaceAll(",\\s*\\[[^\\]]*$", "");
+        
+        // Remove incomplete strings at the end
+        json = json.replaceAll(",\\s*\"[^\"]*$", "");
+        
+        // Remove incomplete property assignments
+        json = json.replaceAll(",\\s*\"[^\"]*\"\\s*:\\s*[^,}\\]]*$", "");
+        
+        // Handle blocks array specifically - if it's incomplete, close it properly
+        if (json.contains("\"blocks\"") && json.contains("[")) {
+            int blocksStart = json.indexOf("\"blocks\"");
+            int arrayStart = json.indexOf("[", blocksStart);
+            if (arrayStart > 0) {
+                // Count braces and brackets from the blocks array start
+                String fromArray = json.substring(arrayStart);
+                int openBrackets = countChar(fromArray, '[');
+                int closeBrackets = countChar(fromArray, ']');
+                int openBraces = countChar(fromArray, '{');
+                int closeBraces = countChar(fromArray, '}');
+                
+                // If we have unmatched elements, try to find a safe truncation point
+                if (openBrackets > closeBrackets || openBraces > closeBraces) {
+                    // Find the last complete block object
+                    int lastCompleteBlock = findLastCompleteBlockIndex(json, arrayStart);
+                    if (lastCompleteBlock > arrayStart) {
+                        json = json.substring(0, lastCompleteBlock) + "]";
+                        // Add closing brace for the main object if needed
+                        if (countChar(json, '{') > countChar(json, '}')) {
+                            json += "}";
+                        }
+                    }
+                }
+            }
+        }
+        
+        return json;
+    }
+    
+    /**
+     * Find the index of the last complete block object in the blocks array
+     */
+    private int findLastCompleteBlockIndex(String json, int arrayStart) {
+        int lastGoodIndex = arrayStart + 1; // Start after the opening bracket
+        int braceCount = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        
+        for (int i = arrayStart + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            
+            if (escaped) {
+                escaped = false;
+                continue;
+            }
+            
+            if (c == '\\') {
+                escaped = true;
+                continue;
+            }
+            
+            if (c == '"') {
+                inString = !inString;
+                continue;
+            }
+            
+            if (!inString) {
+                if (c == '{') {
+                    braceCount++;
+                } else if (c == '}') {
+                    braceCount--;
+                    if (braceCount == 0) {
+                        // We found a complete block object
+                        lastGoodIndex = i + 1;
+                    }
+                }
+            }
+        }
+        
+        return lastGoodIndex;
+    }
+
+    private StructureData.Size parseSize(JsonParser parser) throws Exception {
+        StructureData.Size size = new StructureData.Size();
+        while (parser.nextToken() != JsonToken.END_OBJECT) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            
+            switch (fieldName) {
+                case "width" -> size.setWidth(parser.getValueAsInt());
+                case "height" -> size.setHeight(parser.getValueAsInt());
+                case "depth" -> size.setDepth(parser.getValueAsInt());
+            }
+        }
+        return size;
+    }
+
+    private boolean isValidStructure(StructureData structure) {
+        return structure != null && 
+               structure.getBlocks() != null && 
+               !structure.getBlocks().isEmpty() &&
+               structure.getBlocks().size() > 10; // Minimum reasonable size
+    }
+
+    private boolean isBalancedQuotes(String str) {
+        int count = 0;
+        boolean escaped = false;
+        for (char c : str.toCharArray()) {
+            if (c == '\\' && !escaped) {
+                escaped = true;
+                continue;
+            }
+            if (c == '"' && !escaped) {
+                count++;
+            }
+            escaped = false;
+        }
+        return count % 2 == 0;
+    }
+
+    private int countChar(String str, char c) {
+        return (int) str.chars().filter(ch -> ch == c).count();
+    }
+
+    private StructureData.Size calculateSize(List<StructureData.Block> blocks) {
+        if (blocks.isEmpty()) {
+            StructureData.Size size = new StructureData.Size();
+            size.setWidth(1);
+            size.setHeight(1);
+            size.setDepth(1);
+            return size;
+        }
+        
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE, maxZ = Integer.MIN_VALUE;
+        
+        for (StructureData.Block block : blocks) {
+            minX = Math.min(minX, block.getX());
+            maxX = Math.max(maxX, block.getX());
+            minY = Math.min(minY, block.getY());
+            maxY = Math.max(maxY, block.getY());
+            minZ = Math.min(minZ, block.getZ());
+            maxZ = Math.max(maxZ, block.getZ());
+        }
+        
+        StructureData.Size size = new StructureData.Size();
+        size.setWidth(maxX - minX + 1);
+        size.setHeight(maxY - minY + 1);
+        size.setDepth(maxZ - minZ + 1);
+        return size;
+    }
+}
@@ -0,0 +1,60 @@
+package com.aibuilder.benchmark;
+
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.BlockMerger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging chunk results into one structure the way ChunkedGenerationManager does, with chunks that
+ * overlap their neighbours by one column and pad empty space with AIR.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkMergeBenchmark {
+
+    private static final String[] MATERIALS = {"STONE_BRICKS", "OAK_PLANKS", "GLASS_PANE", "AIR", "COBBLESTONE"};
+
+    @Param({"2", "4"})
+    public int chunksPerSide;
+
+    @Param({"16", "32"})
+    public int chunkSize;
+
+    private final List<List<StructureData.Block>> chunks = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        for (int chunkX = 0; chunkX < chunksPerSide; chunkX++) {
+            for (int chunkZ = 0; chunkZ < chunksPerSide; chunkZ++) {
+                BlockBuffer chunk = new BlockBuffer();
+                for (int x = 0; x <= chunkSize; x++) {
+                    for (int z = 0; z <= chunkSize; z++) {
+                        for (int y = 0; y < 6; y++) {
+                            chunk.add(chunkX * chunkSize + x, y, chunkZ * chunkSize + z,
+                                MATERIALS[(x + y + z) % MATERIALS.length], "");
+                        }
+                    }
+                }
+                chunks.add(chunk.asList());
+            }
+        }
+    }
+
+    @Benchmark
+    public int mergeChunks() {
+        BlockMerger merger = new BlockMerger(true, chunks.size() * chunkSize * chunkSize);
+        for (List<StructureData.Block> chunk : chunks) {
+            merger.addAll(chunk);
+        }
+        return merger.getBlocks().size();
+    }
+}
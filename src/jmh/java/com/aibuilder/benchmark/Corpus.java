@@ -0,0 +1,26 @@
+package com.aibuilder.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the checked-in AI responses the benchmarks run on, from src/jmh/resources/corpus
+ */
+final class Corpus {
+
+    private Corpus() {
+    }
+
+    static String load(String name) {
+        try (InputStream input = Corpus.class.getResourceAsStream("/corpus/" + name + ".txt")) {
+            if (input == null) {
+                throw new IllegalArgumentException("Unknown corpus response: " + name);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.aibuilder.benchmark;
+
+import com.aibuilder.util.MaterialUtil;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Material name resolution as done once per placed block, over the names AI responses typically contain
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaterialLookupBenchmark {
+
+    // Valid, lower case, namespaced, unknown and unsafe names
+    private final String[] names = {
+        "STONE_BRICKS", "oak_planks", "minecraft:glass_pane", "SPRUCE_STAIRS", "MAGIC_STONE", "TNT", "LANTERN", ""
+    };
+
+    @Benchmark
+    public void getMaterialSafely(Blackhole blackhole) {
+        for (String name : names) {
+            Material material = MaterialUtil.getMaterialSafely(name);
+            blackhole.consume(material);
+        }
+    }
+}
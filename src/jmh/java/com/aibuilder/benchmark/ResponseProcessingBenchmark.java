@@ -0,0 +1,64 @@
+package com.aibuilder.benchmark;
+
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.EnhancedResponseProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Throughput of turning a raw AI response into a structure, for each kind of response in the corpus.
+ * Run with -prof gc to see bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseProcessingBenchmark {
+
+    @Param({"clean", "fenced", "commented", "truncated", "huge"})
+    public String corpus;
+
+    private EnhancedResponseProcessor processor;
+    private CascadeResponseProcessor cascade;
+    private String response;
+    private String cleaned;
+
+    @Setup
+    public void setUp() {
+        Logger logger = Logger.getLogger("benchmark");
+        logger.setLevel(Level.OFF);
+        logger.setUseParentHandlers(false);
+        processor = new EnhancedResponseProcessor(logger);
+        cascade = new CascadeResponseProcessor(logger);
+        response = Corpus.load(corpus);
+        cleaned = cascade.cleanResponse(response);
+    }
+
+    @Benchmark
+    public StructureData processResponse() {
+        return processor.processResponse(response, "benchmark structure");
+    }
+
+    /**
+     * Previous parser, to keep the comparison visible
+     */
+    @Benchmark
+    public StructureData processResponseCascade() {
+        return cascade.processResponseCascade(response, "benchmark structure");
+    }
+
+    @Benchmark
+    public String cleanResponse() {
+        return cascade.cleanResponse(response);
+    }
+
+    @Benchmark
+    public String repairJson() {
+        return cascade.repairJson(cleaned);
+    }
+}
@@ -6,6 +6,10 @@ import com.aibuilder.commands.AIHelpCommand;
 import com.aibuilder.manager.AIManager;
 import com.aibuilder.manager.BuildManager;
 import com.aibuilder.manager.ConfigManager;
+import com.aibuilder.manager.ExecutorManager;
+import com.aibuilder.manager.GeminiTransport;
+import com.aibuilder.manager.RequestScheduler;
+import com.aibuilder.manager.RetryScheduler;
 import lombok.Getter;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -21,6 +25,18 @@ public class AIStructureBuilder extends JavaPlugin {
     @Getter
     private ConfigManager configManager;
     
+    @Getter
+    private ExecutorManager executorManager;
+    
+    @Getter
+    private GeminiTransport geminiTransport;
+    
+    @Getter
+    private RequestScheduler requestScheduler;
+    
+    @Getter
+    private RetryScheduler retryScheduler;
+    
     @Getter
     private AIManager aiManager;
     
@@ -35,6 +51,10 @@ public class AIStructureBuilder extends JavaPlugin {
         // Load configuration before initializing other managers
         configManager.loadConfig();
           // Initialize other managers after config is loaded
+        this.executorManager = new ExecutorManager(this);
+        this.geminiTransport = new GeminiTransport(this);
+        this.requestScheduler = new RequestScheduler(this);
+        this.retryScheduler = new RetryScheduler(this);
         this.aiManager = new AIManager(this);
         this.buildManager = new BuildManager(this);
         
@@ -61,6 +81,26 @@ public class AIStructureBuilder extends JavaPlugin {
             buildManager.cancelAllBuilds();
         }
         
+        // Drop pending retries before the transport goes away
+        if (retryScheduler != null) {
+            retryScheduler.shutdown();
+        }
+        
+        // Fail requests still waiting for rate limit capacity
+        if (requestScheduler != null) {
+            requestScheduler.shutdown();
+        }
+        
+        // Release pooled HTTP connections
+        if (geminiTransport != null) {
+            geminiTransport.shutdown();
+        }
+        
+        // Stop AI worker threads
+        if (executorManager != null) {
+            executorManager.shutdown();
+        }
+        
         getLogger().info("AI Structure Builder has been disabled!");
     }    /**
      * Register plugin commands
@@ -1,6 +1,7 @@
 package com.aibuilder.command;
 
 import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.manager.RequestScheduler;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -38,8 +39,10 @@ public class BuildCommand implements CommandExecutor {
 
         player.sendMessage(ChatColor.GOLD + "🏗️ Generating structure: " + ChatColor.YELLOW + description);
         player.sendMessage(ChatColor.GRAY + "💡 Tip: This will create a large, detailed structure with height variation!");        // Generate with increased block limit for larger structures
+        // Permissions are checked on the main thread, the build starts from a generation callback
+        int weight = plugin.getBuildManager().getBuildScheduler().resolveWeight(player);
         plugin.getAiManager().generateStructureWithProgress(description, 5000, // Increased from default
-                progress -> player.sendMessage(ChatColor.AQUA + progress))
+                player.getUniqueId(), RequestScheduler.Priority.BUILD, progress -> player.sendMessage(ChatColor.AQUA + progress))
                 .thenAccept(structureData -> {
                     player.sendMessage(ChatColor.GREEN + "✅ Generation complete! Starting construction...");
                     player.sendMessage(ChatColor.YELLOW + "📏 Structure size: " +
@@ -48,7 +51,7 @@ public class BuildCommand implements CommandExecutor {
                             structureData.getSize().getDepth());
 
                     // Start building with progress updates
-                    plugin.getBuildManager().buildStructureWithProgress(player, structureData,
+                    plugin.getBuildManager().buildStructureWithProgress(player, structureData, weight,
                             progress -> player.sendMessage(ChatColor.GREEN + progress));
                     
                     player.sendMessage(ChatColor.GOLD + "🎉 " + ChatColor.BOLD + "Structure completed successfully!");
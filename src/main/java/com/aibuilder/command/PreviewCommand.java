@@ -1,6 +1,7 @@
 package com.aibuilder.command;
 
 import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.manager.RequestScheduler;
 import com.aibuilder.model.StructureData;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
@@ -46,7 +47,7 @@ public class PreviewCommand implements CommandExecutor {
         
         // Generate structure without building - increased limit for preview
         plugin.getAiManager().generateStructureWithProgress(description, 5000,
-            progress -> player.sendMessage(ChatColor.GRAY + "[Preview] " + progress))
+            player.getUniqueId(), RequestScheduler.Priority.PREVIEW, progress -> player.sendMessage(ChatColor.GRAY + "[Preview] " + progress))
             .thenAccept(structureData -> {
                 // Show preview information
                 player.sendMessage(ChatColor.GOLD + "=== 🏗️ Structure Preview ===");
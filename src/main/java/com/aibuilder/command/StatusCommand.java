@@ -1,10 +1,17 @@
 package com.aibuilder.command;
 
 import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.manager.CircuitBreaker;
+import com.aibuilder.manager.ChunkSizeTuner;
+import com.aibuilder.manager.PlacementBudget;
+import com.aibuilder.manager.RetryScheduler;
+import com.aibuilder.manager.StructureCache;
+import com.aibuilder.manager.TickMonitor;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 
 /**
  * Command to show plugin status and configuration
@@ -34,6 +41,36 @@ public class StatusCommand implements CommandExecutor {
         // Active builds count
         int activeBuilds = plugin.getBuildManager().getActiveBuildCount();
         sender.sendMessage(ChatColor.YELLOW + "Active Builds: " + ChatColor.WHITE + activeBuilds);
+        if (sender instanceof Player && plugin.getBuildManager().hasActiveBuild(((Player) sender).getUniqueId())) {
+            sender.sendMessage(ChatColor.YELLOW + "Your Build Weight: " + ChatColor.WHITE +
+                plugin.getBuildManager().getBuildScheduler().getWeight(((Player) sender).getUniqueId()));
+        }
+        
+        // Placement speed and the tick timing it adapts to
+        PlacementBudget budget = plugin.getBuildManager().getPlacementBudget();
+        TickMonitor ticks = plugin.getBuildManager().getTickMonitor();
+        double mspt = ticks.getMspt();
+        sender.sendMessage(ChatColor.YELLOW + "Placement: " + ChatColor.WHITE + String.format("%.0f blocks/s", budget.getBlocksPerSecond()) +
+            ChatColor.GRAY + String.format(" (TPS %.1f%s, budget %.1f ms/tick%s)", ticks.getTps(),
+                mspt >= 0 ? String.format(", MSPT %.1f", mspt) : "", budget.getTickBudgetMillis(),
+                budget.getBackoff() < 1.0 ? ", backing off" : ""));
+        
+        // Structure cache statistics
+        StructureCache cache = plugin.getAiManager().getStructureCache();
+        sender.sendMessage(ChatColor.YELLOW + "Cache: " + ChatColor.WHITE + cache.getHits() + " hits, " +
+            cache.getMisses() + " misses, " + cache.getEvictions() + " evictions " + ChatColor.GRAY +
+            "(" + cache.getMemoryEntryCount() + " in memory, " + cache.getDiskEntryCount() + " on disk)");
+        
+        // Gemini API health
+        RetryScheduler retryScheduler = plugin.getRetryScheduler();
+        CircuitBreaker.State circuitState = retryScheduler.getCircuitBreaker().getState();
+        ChatColor circuitColor = circuitState == CircuitBreaker.State.CLOSED ? ChatColor.GREEN :
+            circuitState == CircuitBreaker.State.OPEN ? ChatColor.RED : ChatColor.GOLD;
+        sender.sendMessage(ChatColor.YELLOW + "Gemini API: " + circuitColor + (circuitState == CircuitBreaker.State.CLOSED ? "Healthy" :
+            circuitState == CircuitBreaker.State.OPEN ? "Unavailable (retry in " + retryScheduler.getCircuitBreaker().getSecondsUntilRetry() + "s)" : "Recovering"));
+        
+        sender.sendMessage(ChatColor.YELLOW + "AI Queue: " + ChatColor.WHITE + plugin.getRequestScheduler().getQueuedCount() +
+            " requests waiting for rate limit capacity");
         
         // Configuration details (for ops only)
         if (sender.hasPermission("aibuilder.admin")) {
@@ -41,8 +78,24 @@ public class StatusCommand implements CommandExecutor {
             sender.sendMessage(ChatColor.YELLOW + "Model: " + ChatColor.WHITE + plugin.getConfigManager().getGeminiModel());
             sender.sendMessage(ChatColor.YELLOW + "Max Tokens: " + ChatColor.WHITE + plugin.getConfigManager().getMaxTokens());
             sender.sendMessage(ChatColor.YELLOW + "Temperature: " + ChatColor.WHITE + plugin.getConfigManager().getTemperature());
-            sender.sendMessage(ChatColor.YELLOW + "Build Delay: " + ChatColor.WHITE + plugin.getConfigManager().getBuildDelay() + " ticks");
-            sender.sendMessage(ChatColor.YELLOW + "Blocks Per Tick: " + ChatColor.WHITE + plugin.getConfigManager().getBlocksPerTick());
+            if (plugin.getConfigManager().isAdaptivePlacementEnabled()) {
+                sender.sendMessage(ChatColor.YELLOW + "Tick Budget: " + ChatColor.WHITE + plugin.getConfigManager().getTickBudgetPercent() +
+                    "% of each tick" + ChatColor.GRAY + String.format(" (~%.1f µs per block)", budget.getAverageMicrosPerBlock()));
+            } else {
+                sender.sendMessage(ChatColor.YELLOW + "Build Delay: " + ChatColor.WHITE + plugin.getConfigManager().getBuildDelay() + " ticks");
+                sender.sendMessage(ChatColor.YELLOW + "Blocks Per Tick: " + ChatColor.WHITE + plugin.getConfigManager().getBlocksPerTick());
+            }
+            sender.sendMessage(ChatColor.YELLOW + "Block States: " + ChatColor.WHITE + plugin.getBuildManager().getBlockDataCache().size() + " cached");
+            sender.sendMessage(ChatColor.YELLOW + "HTTP Connections: " + ChatColor.WHITE + plugin.getGeminiTransport().getConnectionCount() +
+                " pooled, " + plugin.getGeminiTransport().getRunningCallCount() + " running, " +
+                plugin.getGeminiTransport().getQueuedCallCount() + " queued");
+            sender.sendMessage(ChatColor.YELLOW + "Retries: " + ChatColor.WHITE + retryScheduler.getRetryCount() + " of " +
+                retryScheduler.getRequestCount() + " requests, " + retryScheduler.getRetriesDeniedCount() + " denied by budget");
+            ChunkSizeTuner tuner = plugin.getAiManager().getChunkedManager().getChunkSizeTuner();
+            sender.sendMessage(ChatColor.YELLOW + "Chunk Size: " + ChatColor.WHITE + tuner.getRecommendedChunkSize() + ChatColor.GRAY +
+                " (" + tuner.getTotalChunks() + " chunks, ~" + tuner.getAverageOutputTokens() + " output tokens and ~" +
+                tuner.getAverageBlocksPerChunk() + " blocks each, " + tuner.getTruncatedChunks() + " cut off, " +
+                tuner.getSplitChunks() + " split)");
         }
         
         return true;
@@ -1,6 +1,8 @@
 package com.aibuilder.commands;
 
 import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.manager.BlockStream;
+import com.aibuilder.manager.RequestScheduler;
 import com.aibuilder.model.StructureData;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -66,8 +68,22 @@ public class AIBuildCommand implements CommandExecutor {
         
         int maxSize = plugin.getConfigManager().getMaxStructureSize();
         
+        // Stream blocks straight into the world, large structures chunk by chunk. Placing chunks as they are released
+        // needs no streamed response, so chunked builds do it even with streaming off. A streamed build starts before
+        // its size is known, so it is only used when a build of the maximum size would not need confirmation
+        boolean needsConfirmation = plugin.getConfigManager().requireConfirmation() &&
+            maxSize > plugin.getConfigManager().getConfirmationThreshold();
+        boolean placeWhileGenerating = plugin.getConfigManager().isStreamingEnabled() ||
+            plugin.getAiManager().usesChunkedGeneration(maxSize);
+        if (placeWhileGenerating && !needsConfirmation) {
+            startStreamingBuild(player, description, maxSize);
+            return true;
+        }
+        
+        // Permissions are checked on the main thread, the build starts from a generation callback
+        int weight = plugin.getBuildManager().getBuildScheduler().resolveWeight(player);
         CompletableFuture<StructureData> future = plugin.getAiManager().generateStructureWithProgress(description, maxSize,
-            progress -> player.sendMessage("§7[AI] " + progress));        future.thenAccept(structureData -> {
+            player.getUniqueId(), RequestScheduler.Priority.BUILD, progress -> player.sendMessage("§7[AI] " + progress));        future.thenAccept(structureData -> {
             // Check if player is still online
             if (!player.isOnline()) {
                 return;
@@ -120,7 +136,7 @@ public class AIBuildCommand implements CommandExecutor {
             }
             
             // Start building with progress updates (only if confirmation not required)
-            plugin.getBuildManager().buildStructureWithProgress(player, structureData,
+            plugin.getBuildManager().buildStructureWithProgress(player, structureData, weight,
                 buildProgress -> player.sendMessage("§7[Build] " + buildProgress));
             
         }).exceptionally(throwable -> {
@@ -131,6 +147,34 @@ public class AIBuildCommand implements CommandExecutor {
         });        return true;
     }
     
+    /**
+     * Generate and build at the same time, placing blocks as the AI streams them or chunk by chunk
+     */
+    private void startStreamingBuild(Player player, String description, int maxSize) {
+        BlockStream blockStream = new BlockStream(plugin.getConfigManager().getStreamQueueCapacity());
+        
+        if (!plugin.getBuildManager().buildStreamingStructure(player, blockStream,
+            buildProgress -> player.sendMessage("§7[Build] " + buildProgress))) {
+            return;
+        }
+        
+        plugin.getAiManager().generateStructureStreaming(description, maxSize, player.getUniqueId(),
+            RequestScheduler.Priority.BUILD, blockStream,
+            progress -> player.sendMessage("§7[AI] " + progress))
+            .thenAccept(structureData -> {
+                if (structureData != null && structureData.getBlocks() != null) {
+                    plugin.getLogger().info("Streamed structure '" + description + "' with " +
+                        structureData.getBlocks().size() + " blocks");
+                }
+            })
+            .exceptionally(throwable -> {
+                // The placer reports the failure to the player once the stream drains
+                blockStream.fail(throwable.getCause() != null ? throwable.getCause() : throwable);
+                plugin.getLogger().warning("Streaming generation failed: " + throwable.getMessage());
+                return null;
+            });
+    }
+    
     /**
      * Log structure data to file for debugging
      */
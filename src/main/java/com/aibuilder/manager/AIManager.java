@@ -1,17 +1,25 @@
 package com.aibuilder.manager;
 
 import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.model.GeminiResponse;
 import com.aibuilder.model.StructureData;
 import com.aibuilder.processor.EnhancedResponseProcessor;
+import com.aibuilder.processor.PrimitiveExpander;
+import com.aibuilder.processor.StreamingBlockParser;
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import lombok.Getter;
-import okhttp3.*;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -19,23 +27,96 @@ import java.util.function.Consumer;
  */
 public class AIManager {
       private final AIStructureBuilder plugin;
-    private final OkHttpClient httpClient;
+    private final GeminiTransport transport;
+    private final ExecutorManager executorManager;
+    private final RequestScheduler requestScheduler;
+    private final RetryScheduler retryScheduler;
     private final Gson gson;
+    @Getter
     private final ChunkedGenerationManager chunkedManager;
     private final EnhancedResponseProcessor responseProcessor;
     @Getter
+    private final StructureCache structureCache;
+    private final Map<String, InFlightGeneration> inFlightGenerations = new ConcurrentHashMap<>();
+    private final Map<String, InFlightStream> inFlightStreams = new ConcurrentHashMap<>();
+    @Getter
     private boolean configured = false;
+    
+    /**
+     * A running generation shared by every caller that asked for the same request key
+     */
+    private static class InFlightGeneration {
+        private final CompletableFuture<StructureData> result = new CompletableFuture<>();
+        private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+        
+        private void broadcast(String message) {
+            for (Consumer<String> listener : listeners) {
+                try {
+                    listener.accept(message);
+                } catch (Exception ignored) {
+                    // One failing listener must not stop updates for the others
+                }
+            }
+        }
+    }
+
+    /**
+     * A running streamed generation, recording every block it pushes so players joining late get the whole structure
+     */
+    private static class InFlightStream {
+        private final CompletableFuture<StructureData> result = new CompletableFuture<>();
+        private final List<StructureData.Block> blocks = new ArrayList<>();
+        private boolean finished = false;
+        private Throwable failure;
+
+        private synchronized void record(StructureData.Block block) {
+            blocks.add(block);
+            notifyAll();
+        }
+
+        private synchronized void finish(Throwable failure) {
+            this.finished = true;
+            this.failure = failure;
+            notifyAll();
+        }
+
+        /**
+         * Push every recorded block into another stream, following along until the generation has finished
+         */
+        private void replayInto(BlockStream blockStream) throws InterruptedException {
+            int next = 0;
+            while (true) {
+                StructureData.Block block;
+                synchronized (this) {
+                    while (next == blocks.size() && !finished && !blockStream.isCancelled()) {
+                        wait(250);
+                    }
+                    if (blockStream.isCancelled()) {
+                        return;
+                    }
+                    if (next == blocks.size()) {
+                        if (failure != null) {
+                            blockStream.fail(failure);
+                        }
+                        return;
+                    }
+                    block = blocks.get(next++);
+                }
+                blockStream.push(block);
+            }
+        }
+    }
       public AIManager(AIStructureBuilder plugin) {
         this.plugin = plugin;
-        // Configure HTTP client with timeouts
-        this.httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .build();
+        // All Gemini traffic goes through the shared transport
+        this.transport = plugin.getGeminiTransport();
+        this.executorManager = plugin.getExecutorManager();
+        this.requestScheduler = plugin.getRequestScheduler();
+        this.retryScheduler = plugin.getRetryScheduler();
         this.gson = new Gson();
         this.chunkedManager = new ChunkedGenerationManager(plugin);
         this.responseProcessor = new EnhancedResponseProcessor(plugin);
+        this.structureCache = new StructureCache(plugin);
         // Don't call updateConfiguration() here - will be called after config is loaded
     }
 
@@ -51,118 +132,398 @@ public class AIManager {
      * Generate structure instructions using Gemini AI with retry logic
      */
     public CompletableFuture<StructureData> generateStructure(String description, int maxSize) {
-        return CompletableFuture.supplyAsync(() -> {
-            final int maxRetries = 3;
-            Exception lastException = null;
-            
-            for (int attempt = 1; attempt <= maxRetries; attempt++) {
-                try {
-                    if (!configured) {
-                        throw new RuntimeException("AI not configured - please set API key");
-                    }
+        if (!configured) {
+            plugin.getLogger().warning("AI not configured - please set API key, creating simple fallback structure");
+            return CompletableFuture.completedFuture(createFallbackStructure(description));
+        }
+        
+        plugin.getLogger().info("Generating structure: " + description);
+        String prompt = createPrompt(description, maxSize);
+        
+        // Parse failures are retried together with the request that produced them
+        return retryScheduler.execute(() -> sendRequest(prompt, RequestScheduler.SERVER, RequestScheduler.Priority.BACKGROUND, null)
+                .thenApplyAsync(this::parseResponse, executorManager.getCpuExecutor()), null)
+            .exceptionally(error -> {
+                plugin.getLogger().warning("AI generation failed, creating simple fallback structure");
+                plugin.getLogger().warning("Last error: " + error.getMessage());
+                return createFallbackStructure(description);
+            });
+    }
 
-                    plugin.getLogger().info("Generating structure (attempt " + attempt + "/" + maxRetries + "): " + description);
-                    
-                    String prompt = createPrompt(description, maxSize);
-                    String response = callGeminiAPI(prompt);
-                    StructureData result = parseResponse(response);
-                    
-                    plugin.getLogger().info("Structure generated successfully!");
-                    return result;
-                    
-                } catch (Exception e) {
-                    lastException = e;
-                    plugin.getLogger().warning("Attempt " + attempt + " failed: " + e.getMessage());
-                    
-                    if (attempt < maxRetries) {
-                        try {
-                            Thread.sleep(2000 * attempt); // Exponential backoff
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            break;
-                        }
-                    }
-                }            }
-            
-            // If all attempts failed, generate a simple fallback structure
-            plugin.getLogger().warning("AI generation failed after " + maxRetries + " attempts, creating simple fallback structure");
-            if (lastException != null) {
-                plugin.getLogger().warning("Last error: " + lastException.getMessage());
-            }
-            return createFallbackStructure(description);
-        });
-    }    /**
+    /**
      * Generate structure instructions using Gemini AI with progress updates
      */
     public CompletableFuture<StructureData> generateStructureWithProgress(String description, int maxSize, Consumer<String> progressCallback) {
+        return generateStructureWithProgress(description, maxSize, null, RequestScheduler.Priority.BUILD, progressCallback);
+    }
+    
+    /**
+     * Generate structure instructions for a player, queued fairly against other players' requests
+     */
+    public CompletableFuture<StructureData> generateStructureWithProgress(String description, int maxSize, UUID requester,
+                                                                          RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        String key = createRequestKey(description, maxSize, priority);
+        InFlightGeneration generation = new InFlightGeneration();
+        generation.listeners.add(progressCallback);
+        
+        // Join an identical request that is already running instead of calling the API again
+        InFlightGeneration existing = inFlightGenerations.putIfAbsent(key, generation);
+        if (existing != null) {
+            existing.listeners.add(progressCallback);
+            progressCallback.accept("The same structure is already being generated, sharing that request...");
+            return existing.result.copy();
+        }
+        
+        startGeneration(description, maxSize, requester, priority, generation::broadcast).whenComplete((result, throwable) -> {
+            inFlightGenerations.remove(key, generation);
+            if (throwable != null) {
+                generation.result.completeExceptionally(
+                    throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+            } else {
+                generation.result.complete(result);
+            }
+        });
+        return generation.result.copy();
+    }
+    
+    /**
+     * Start a new generation, choosing chunked or regular generation by size
+     */
+    private CompletableFuture<StructureData> startGeneration(String description, int maxSize, UUID requester,
+                                                             RequestScheduler.Priority priority, Consumer<String> progressCallback) {
         // Check if we should use chunked generation for large structures
-        if (plugin.getConfigManager().isChunkedGenerationEnabled() && 
-            maxSize >= plugin.getConfigManager().getChunkedThreshold()) {
+        if (usesChunkedGeneration(maxSize)) {
             
             progressCallback.accept("Large structure detected, using chunked generation...");
             plugin.getLogger().info("Using chunked generation for large structure: " + description + " (target size: " + maxSize + ")");
             
-            return chunkedManager.generateLargeStructure(description, maxSize, progressCallback);
+            return chunkedManager.generateLargeStructure(description, maxSize, requester, priority, progressCallback);
         }
         
         // Use regular generation for smaller structures
-        return generateRegularStructure(description, maxSize, progressCallback);
+        return generateRegularStructure(description, maxSize, requester, priority, progressCallback);
     }
     
     /**
      * Generate regular-sized structure
      */
-    private CompletableFuture<StructureData> generateRegularStructure(String description, int maxSize, Consumer<String> progressCallback) {
-        return CompletableFuture.supplyAsync(() -> {
-            final int maxRetries = 3;
-            Exception lastException = null;
+    private CompletableFuture<StructureData> generateRegularStructure(String description, int maxSize, UUID requester,
+                                                                      RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        String cacheKey = createCacheKey(description, maxSize);
+        
+        return executorManager.supplyIo(() -> structureCache.get(cacheKey), progressCallback).thenCompose(cached -> {
+            if (cached != null) {
+                progressCallback.accept("Found a cached design for this description, skipping AI generation!");
+                return CompletableFuture.completedFuture(cached);
+            }
             
             progressCallback.accept("Starting AI structure generation...");
             
-            for (int attempt = 1; attempt <= maxRetries; attempt++) {
-                try {
-                    if (!configured) {
-                        throw new RuntimeException("AI not configured - please set API key");
+            // The request is retried on a timer, parsing runs on the CPU pool
+            return requestWithRetries(description, maxSize, requester, priority, progressCallback)
+                .thenCompose(response -> {
+                    if (response == null) {
+                        progressCallback.accept("AI generation failed, creating fallback structure...");
+                        return CompletableFuture.completedFuture(createFallbackStructure(description));
                     }
-
-                    progressCallback.accept("Attempt " + attempt + "/" + maxRetries + " - Preparing AI request...");
-                    plugin.getLogger().info("Generating structure (attempt " + attempt + "/" + maxRetries + "): " + description);
-                    
-                    String prompt = createPrompt(description, maxSize);
-                    progressCallback.accept("Sending request to Gemini AI...");
-                      String response = callGeminiAPI(prompt);
-                    progressCallback.accept("Processing AI response...");
-                    
-                    StructureData result = responseProcessor.processResponse(response, description);
-                    progressCallback.accept("Structure generation completed successfully!");
                     
-                    plugin.getLogger().info("Structure generated successfully!");
-                    return result;
-                    
-                } catch (Exception e) {
-                    lastException = e;
-                    progressCallback.accept("Attempt " + attempt + " failed: " + e.getMessage());
-                    plugin.getLogger().warning("Attempt " + attempt + " failed: " + e.getMessage());
-                    
-                    if (attempt < maxRetries) {
-                        progressCallback.accept("Retrying in " + (2 * attempt) + " seconds...");
-                        try {
-                            Thread.sleep(2000 * attempt); // Exponential backoff
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            break;
+                    return executorManager.supplyCpu(() -> {
+                        progressCallback.accept("Processing AI response...");
+                        StructureData result = responseProcessor.processResponse(response, description);
+                        if (!result.isFallback()) {
+                            structureCache.put(cacheKey, result);
                         }
-                    }
+                        progressCallback.accept("Structure generation completed successfully!");
+                        plugin.getLogger().info("Structure generated successfully!");
+                        return result;
+                    }, progressCallback);
+                });
+        });
+    }
+    
+    /**
+     * Request structure JSON from Gemini with retries, completing with null if every attempt failed
+     */
+    private CompletableFuture<String> requestWithRetries(String description, int maxSize, UUID requester,
+                                                         RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        if (!configured) {
+            progressCallback.accept("AI not configured - please set API key");
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        final int maxRetries = plugin.getConfigManager().getRetryMaxAttempts();
+        String prompt = createPrompt(description, maxSize);
+        AtomicInteger attempt = new AtomicInteger();
+        
+        return retryScheduler.execute(() -> {
+            int current = attempt.incrementAndGet();
+            progressCallback.accept("Attempt " + current + "/" + maxRetries + " - Sending request to Gemini AI...");
+            plugin.getLogger().info("Generating structure (attempt " + current + "/" + maxRetries + "): " + description);
+            return sendRequest(prompt, requester, priority, progressCallback);
+        }, progressCallback).handle((response, error) -> {
+            if (error != null) {
+                progressCallback.accept(error.getMessage());
+                plugin.getLogger().warning("AI generation failed after " + attempt.get() + " attempts, creating simple fallback structure");
+                plugin.getLogger().warning("Last error: " + error.getMessage());
+                return null;
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Generate a structure through the streaming endpoint, pushing each block into the stream
+     * as soon as it has been parsed so placement can start before the response is complete.
+     * Large structures stream chunk by chunk in plan order instead. Identical requests of the same priority
+     * running at the same time share one generation.
+     */
+    public CompletableFuture<StructureData> generateStructureStreaming(String description, int maxSize, UUID requester,
+                                                                       RequestScheduler.Priority priority, BlockStream blockStream,
+                                                                       Consumer<String> progressCallback) {
+        String key = createRequestKey(description, maxSize, priority);
+        InFlightStream stream = new InFlightStream();
+
+        // Join an identical stream that is already running, replaying the blocks it has pushed so far
+        InFlightStream existing = inFlightStreams.putIfAbsent(key, stream);
+        if (existing != null) {
+            progressCallback.accept("The same structure is already being generated, sharing that request...");
+            return executorManager.supplyStream(() -> {
+                try {
+                    existing.replayInto(blockStream);
+                } catch (CancellationException e) {
+                    plugin.getLogger().info("Shared streamed build cancelled");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    blockStream.fail(new CancellationException("Shared streamed build interrupted"));
+                } finally {
+                    blockStream.complete();
                 }
+                return null;
+            }, progressCallback).thenCompose(ignored -> existing.result.copy());
+        }
+
+        blockStream.setListener(stream::record);
+        startStreaming(description, maxSize, requester, priority, blockStream, progressCallback).whenComplete((result, throwable) -> {
+            inFlightStreams.remove(key, stream);
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            if (cause == null && blockStream.isCancelled()) {
+                // Players sharing the stream cannot finish a structure the first player cancelled
+                cause = new CancellationException("The shared generation was cancelled");
             }
-              // If all attempts failed, generate a simple fallback structure
-            progressCallback.accept("AI generation failed, creating fallback structure...");
-            plugin.getLogger().warning("AI generation failed after " + maxRetries + " attempts, creating simple fallback structure");
-            if (lastException != null) {
-                plugin.getLogger().warning("Last error: " + lastException.getMessage());
+            stream.finish(cause);
+            if (throwable != null) {
+                stream.result.completeExceptionally(cause);
+            } else {
+                stream.result.complete(result);
             }
-            return createFallbackStructure(description);
         });
+        return stream.result.copy();
+    }
+
+    /**
+     * Start a new streamed generation, choosing chunked or regular generation by size
+     */
+    private CompletableFuture<StructureData> startStreaming(String description, int maxSize, UUID requester,
+                                                            RequestScheduler.Priority priority, BlockStream blockStream,
+                                                            Consumer<String> progressCallback) {
+        if (usesChunkedGeneration(maxSize)) {
+            progressCallback.accept("Large structure detected, placing each chunk as soon as it is generated...");
+            plugin.getLogger().info("Using streamed chunked generation for large structure: " + description + " (target size: " + maxSize + ")");
+            return chunkedManager.generateLargeStructureStreaming(description, maxSize, requester, priority, blockStream, progressCallback);
+        }
+
+        String cacheKey = createCacheKey(description, maxSize);
+
+        return executorManager.supplyIo(() -> structureCache.get(cacheKey), progressCallback).thenCompose(cached -> {
+            if (cached != null) {
+                progressCallback.accept("Found a cached design for this description, skipping AI generation!");
+                return replayStructure(cached, blockStream, progressCallback);
+            }
+
+            progressCallback.accept("Starting streaming AI structure generation...");
+            // Only one attempt runs at a time, each completion hands the list on to the next stage
+            List<StructureData.Block> blocks = new ArrayList<>();
+            AtomicBoolean streamComplete = new AtomicBoolean();
+
+            // Pushing blocks can block on backpressure, so finish on a stream thread rather than the HTTP or timer thread
+            return streamWithRetries(description, maxSize, requester, priority, blockStream, blocks, streamComplete, progressCallback)
+                .handleAsync((ignored, error) -> finishStreaming(description, cacheKey, blockStream, blocks,
+                    streamComplete.get(), error, progressCallback), executorManager.getStreamExecutor());
+        });
+    }
+
+    /**
+     * Push the blocks of a finished structure into the block stream on a stream thread
+     */
+    private CompletableFuture<StructureData> replayStructure(StructureData structure, BlockStream blockStream,
+                                                             Consumer<String> progressCallback) {
+        return executorManager.supplyStream(() -> {
+            try {
+                for (StructureData.Block block : structure.getBlocks()) {
+                    blockStream.push(block);
+                }
+            } catch (CancellationException e) {
+                plugin.getLogger().info("Build of " + structure.getName() + " cancelled");
+            } finally {
+                blockStream.complete();
+            }
+            return structure;
+        }, progressCallback);
+    }
+
+    /**
+     * Stream structure JSON from Gemini into the block stream. Attempts are only retried
+     * while no blocks have been emitted, since placed blocks cannot be taken back.
+     */
+    private CompletableFuture<Void> streamWithRetries(String description, int maxSize, UUID requester,
+                                                      RequestScheduler.Priority priority, BlockStream blockStream,
+                                                      List<StructureData.Block> blocks, AtomicBoolean streamComplete,
+                                                      Consumer<String> progressCallback) {
+        if (!configured) {
+            return CompletableFuture.failedFuture(new IllegalStateException("AI not configured - please set API key"));
+        }
+
+        final int maxRetries = plugin.getConfigManager().getRetryMaxAttempts();
+        String prompt = createPrompt(description, maxSize);
+        AtomicInteger attempt = new AtomicInteger();
+
+        return retryScheduler.execute(() -> {
+            if (blockStream.isCancelled()) {
+                return CompletableFuture.failedFuture(new CancellationException("Build cancelled"));
+            }
+
+            int current = attempt.incrementAndGet();
+            plugin.getLogger().info("Streaming structure (attempt " + current + "/" + maxRetries + "): " + description);
+            StreamingBlockParser parser = new StreamingBlockParser(gson, block -> {
+                blocks.add(block);
+                blockStream.push(block);
+                if (blocks.size() == 1) {
+                    progressCallback.accept("First blocks received, construction has started!");
+                }
+            });
+
+            return requestScheduler.submit(requester, priority, prompt,
+                () -> transport.streamGenerateContentAsync(prompt, parser::feed), progressCallback).thenApply(ignored -> {
+                if (parser.getBlockCount() == 0) {
+                    throw new RuntimeException("No blocks found in streamed response");
+                }
+                if (!parser.isComplete()) {
+                    plugin.getLogger().warning("Streamed response ended before the blocks array was closed, keeping " +
+                        parser.getBlockCount() + " blocks");
+                }
+                streamComplete.set(parser.isComplete());
+                return null;
+            });
+        }, progressCallback, error -> blocks.isEmpty() && !blockStream.isCancelled());
+    }
+
+    /**
+     * Complete the block stream after the last attempt, pushing the fallback structure if nothing arrived
+     */
+    private StructureData finishStreaming(String description, String cacheKey, BlockStream blockStream,
+                                          List<StructureData.Block> blocks, boolean streamComplete,
+                                          Throwable error, Consumer<String> progressCallback) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        try {
+            if (cause instanceof CancellationException || blockStream.isCancelled()) {
+                plugin.getLogger().info("Streaming generation cancelled after " + blocks.size() + " blocks");
+            } else if (blocks.isEmpty()) {
+                progressCallback.accept("AI generation failed, creating fallback structure...");
+                if (cause != null) {
+                    plugin.getLogger().warning("Last error: " + cause.getMessage());
+                }
+                StructureData fallback = createFallbackStructure(description);
+                for (StructureData.Block block : fallback.getBlocks()) {
+                    blockStream.push(block);
+                }
+                return fallback;
+            } else if (cause != null) {
+                // Blocks already handed to the placer cannot be taken back, keep what we have
+                progressCallback.accept("AI stream interrupted, keeping " + blocks.size() + " blocks");
+            }
+        } catch (CancellationException e) {
+            plugin.getLogger().info("Streaming generation cancelled after " + blocks.size() + " blocks");
+        } catch (RuntimeException e) {
+            blockStream.fail(e);
+            throw e;
+        } finally {
+            blockStream.complete();
+        }
+
+        StructureData result = new StructureData();
+        result.setName(description);
+        result.setDescription("AI-generated structure: " + description);
+        result.setBlocks(blocks);
+        result.setSize(calculateSize(blocks));
+        if (streamComplete && cause == null && !blockStream.isCancelled()) {
+            structureCache.put(cacheKey, result);
+        }
+        progressCallback.accept("AI stream completed with " + blocks.size() + " blocks");
+        return result;
+    }
+
+    /**
+     * Send a prompt once the rate limiter admits it
+     */
+    private CompletableFuture<String> sendRequest(String prompt, UUID requester, RequestScheduler.Priority priority,
+                                                  Consumer<String> progressCallback) {
+        // The detailed response carries the token usage the rate limiter settles its estimate with
+        return requestScheduler.submit(requester, priority, prompt, () -> transport.generateContentDetailedAsync(prompt), progressCallback)
+            .thenApply(GeminiResponse::getText);
+    }
+
+    /**
+     * Calculate bounding size of a block list
+     */
+    private StructureData.Size calculateSize(List<StructureData.Block> blocks) {
+        int minX = 0, maxX = 0, minY = 0, maxY = 0, minZ = 0, maxZ = 0;
+        boolean first = true;
+        for (StructureData.Block block : blocks) {
+            if (first) {
+                minX = maxX = block.getX();
+                minY = maxY = block.getY();
+                minZ = maxZ = block.getZ();
+                first = false;
+                continue;
+            }
+            minX = Math.min(minX, block.getX());
+            maxX = Math.max(maxX, block.getX());
+            minY = Math.min(minY, block.getY());
+            maxY = Math.max(maxY, block.getY());
+            minZ = Math.min(minZ, block.getZ());
+            maxZ = Math.max(maxZ, block.getZ());
+        }
+
+        StructureData.Size size = new StructureData.Size();
+        size.setWidth(maxX - minX + 1);
+        size.setHeight(maxY - minY + 1);
+        size.setDepth(maxZ - minZ + 1);
+        return size;
+    }
+
+    /**
+     * Create the key identical running requests are shared by. Priority is part of it, so a build never
+     * waits behind a lower priority request for the same structure.
+     */
+    private String createRequestKey(String description, int maxSize, RequestScheduler.Priority priority) {
+        return priority + ":" + createCacheKey(description, maxSize);
+    }
+
+    /**
+     * Create the structure cache key for a request with the current model settings
+     */
+    private String createCacheKey(String description, int maxSize) {
+        return StructureCache.createKey(description, maxSize,
+            plugin.getConfigManager().getGeminiModel(), plugin.getConfigManager().getTemperature());
+    }
+
+    /**
+     * Check if a structure of this size should use chunked generation
+     */
+    public boolean usesChunkedGeneration(int maxSize) {
+        return plugin.getConfigManager().isChunkedGenerationEnabled() &&
+            maxSize >= plugin.getConfigManager().getChunkedThreshold();
     }
 
     /**
@@ -172,6 +533,7 @@ public class AIManager {
         StructureData fallback = new StructureData();
         fallback.setName("Simple " + description);
         fallback.setDescription("Fallback structure created when AI was unavailable");
+        fallback.setFallback(true);
         
         // Create a simple 3x3x3 structure
         StructureData.Size size = new StructureData.Size();
@@ -230,8 +592,8 @@ public class AIManager {
      * Create a detailed prompt for structure generation
      */
     private String createPrompt(String description, int maxSize) {
-        // Use larger structure sizes for regular generation, but still cap to prevent API issues
-        int actualMaxSize = Math.min(maxSize, 2000); // Much larger cap for substantial structures
+        // Primitives keep large structures compact, but still cap to prevent API issues
+        int actualMaxSize = Math.min(maxSize, 10000);
         
         // Determine structure complexity based on size
         String sizeGuidance;
@@ -242,9 +604,12 @@ public class AIManager {
         } else if (actualMaxSize <= 500) {
             sizeGuidance = "MEDIUM to LARGE";
             dimensionGuidance = "Maximum size: 15x15x15 blocks";
-        } else {
+        } else if (actualMaxSize <= 2000) {
             sizeGuidance = "LARGE and DETAILED";
             dimensionGuidance = "Maximum size: 20x20x20 blocks";
+        } else {
+            sizeGuidance = "HUGE and DETAILED";
+            dimensionGuidance = "Maximum size: 32x32x32 blocks";
         }
           return String.format(
             "You are a Minecraft master architect. Create a %s, DETAILED structure for: \"%s\"\n\n" +
@@ -269,30 +634,25 @@ public class AIManager {
             "- For castles: Include towers, walls, battlements, courtyard\n" +
             "- For modern buildings: Include glass facades, geometric designs\n" +
             "- For bridges: Include support pillars, railings, decorative arches\n" +
-            "- Always include proper foundations and structural support\n\n" +            "RESPOND WITH VALID JSON ONLY (no markdown, no explanations, no comments):\n" +
+            "- Always include proper foundations and structural support\n\n" +
+            "OUTPUT FORMAT:\n" +
+            PrimitiveExpander.FORMAT_INSTRUCTIONS + "\n" +
+            "RESPOND WITH VALID JSON ONLY (no markdown, no explanations, no comments):\n" +
             "{\n" +
             "  \"name\": \"Structure Name\",\n" +
             "  \"description\": \"Detailed description\",\n" +
-            "  \"size\": {\n" +
-            "    \"width\": 15,\n" +
-            "    \"height\": 12,\n" +
-            "    \"depth\": 15\n" +
-            "  },\n" +
-            "  \"blocks\": [\n" +
-            "    {\n" +
-            "      \"x\": 0,\n" +
-            "      \"y\": 0,\n" +
-            "      \"z\": 0,\n" +
-            "      \"material\": \"STONE\",\n" +
-            "      \"data\": \"\"\n" +
-            "    }\n" +
+            "  \"size\": {\"width\": 15, \"height\": 12, \"depth\": 15},\n" +
+            "  \"primitives\": [\n" +
+            "    {\"type\": \"fill\", \"from\": [0,0,0], \"to\": [14,0,14], \"material\": \"STONE_BRICKS\"},\n" +
+            "    {\"type\": \"walls\", \"from\": [0,1,0], \"to\": [14,5,14], \"material\": \"OAK_PLANKS\"},\n" +
+            "    {\"type\": \"block\", \"at\": [7,1,0], \"material\": \"AIR\"}\n" +
             "  ]\n" +
             "}\n\n" +
             "CRITICAL REQUIREMENTS:\n" +
             "- Return ONLY valid JSON - NO comments (//) anywhere\n" +
             "- NO markdown formatting (```json)\n" +
             "- NO explanations or text outside JSON\n" +
-            "- Keep response under 4000 characters total\n" +
+            "- Use large primitives for walls, floors and roofs and single blocks only for details\n" +
             "- Generate substantial structures with %d+ blocks for impressive builds\n" +
             "- Use realistic proportions and architectural principles\n" +
             "- Include detailed features and decorative elements\n" +
@@ -300,68 +660,6 @@ public class AIManager {
             sizeGuidance, description, actualMaxSize, dimensionGuidance, actualMaxSize);
     }
 
-    /**
-     * Call Gemini API
-     */
-    private String callGeminiAPI(String prompt) throws IOException {
-        String apiKey = plugin.getConfigManager().getGeminiApiKey();
-        String model = plugin.getConfigManager().getGeminiModel();
-        
-        // Create request body
-        JsonObject requestBody = new JsonObject();
-        JsonObject contents = new JsonObject();
-        JsonObject parts = new JsonObject();
-        parts.addProperty("text", prompt);
-        contents.add("parts", gson.toJsonTree(new JsonObject[]{gson.fromJson(parts, JsonObject.class)}));
-        requestBody.add("contents", gson.toJsonTree(new JsonObject[]{gson.fromJson(contents, JsonObject.class)}));
-        
-        JsonObject generationConfig = new JsonObject();
-        generationConfig.addProperty("temperature", plugin.getConfigManager().getTemperature());
-        generationConfig.addProperty("maxOutputTokens", plugin.getConfigManager().getMaxTokens());
-        requestBody.add("generationConfig", generationConfig);
-
-        RequestBody body = RequestBody.create(
-            gson.toJson(requestBody),
-            MediaType.get("application/json; charset=utf-8")
-        );
-
-        Request request = new Request.Builder()
-            .url("https://generativelanguage.googleapis.com/v1beta/models/" + model + ":generateContent?key=" + apiKey)
-            .post(body)
-            .addHeader("Content-Type", "application/json")
-            .build();        if (plugin.getConfigManager().shouldLogAIRequests()) {
-            plugin.getLogger().info("Sending AI request: " + prompt.substring(0, Math.min(100, prompt.length())) + "...");
-        }
-        
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                String errorBody = response.body() != null ? response.body().string() : "No error details";
-                throw new IOException("API request failed with code " + response.code() + ": " + errorBody);
-            }
-            
-            String responseBody = response.body().string();
-            
-            if (plugin.getConfigManager().shouldLogAIRequests()) {
-                plugin.getLogger().info("AI response received");
-            }
-            
-            // Parse the response to extract the generated text
-            JsonObject responseJson = JsonParser.parseString(responseBody).getAsJsonObject();
-            return responseJson.getAsJsonArray("candidates")
-                .get(0).getAsJsonObject()
-                .getAsJsonObject("content")
-                .getAsJsonArray("parts")
-                .get(0).getAsJsonObject()
-                .get("text").getAsString();
-        } catch (java.net.SocketTimeoutException e) {
-            throw new IOException("Request timed out - try again or reduce structure complexity", e);
-        } catch (java.io.IOException e) {
-            if (e.getMessage().contains("timeout")) {
-                throw new IOException("Connection timeout - check your internet connection", e);
-            }            throw e;
-        }
-    }
-
     /**
      * Parse AI response into StructureData
      */
@@ -389,6 +687,7 @@ public class AIManager {
             if (structureData == null) {
                 throw new RuntimeException("Failed to parse structure data");
             }
+            new PrimitiveExpander().expandInto(structureData);
             if (structureData.getBlocks() == null || structureData.getBlocks().isEmpty()) {
                 throw new RuntimeException("No blocks found in structure data");
             }
@@ -0,0 +1,87 @@
+package com.aibuilder.manager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Parsed block states by material and data string, kept for the lifetime of the server so each distinct state
+ * is parsed once. Strings the server rejects are cached as well and place the plain material.
+ * Returned BlockData is shared and must not be modified.
+ */
+public class BlockDataCache {
+
+    /**
+     * Most distinct states kept, AI output with garbage data must not grow the cache without bound
+     */
+    public static final int MAX_ENTRIES = 4096;
+
+    // Marks a state that failed to parse, ConcurrentHashMap does not take null values
+    private static final Object INVALID = new Object();
+
+    private final Logger logger;
+    private final Map<String, Object> cache = new ConcurrentHashMap<>();
+
+    public BlockDataCache(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Get the block data for a material and a state string such as "facing=north,half=bottom",
+     * or null if the string is empty or not valid for the material
+     */
+    public BlockData get(Material material, String data) {
+        String states = normalize(data);
+        if (states == null) {
+            return null;
+        }
+
+        String key = material.name() + states;
+        Object cached = cache.get(key);
+        if (cached == null) {
+            cached = parse(material, states);
+            if (cache.size() < MAX_ENTRIES) {
+                cache.putIfAbsent(key, cached);
+            }
+        }
+        return cached == INVALID ? null : (BlockData) cached;
+    }
+
+    /**
+     * Get number of cached states
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private Object parse(Material material, String states) {
+        try {
+            return Bukkit.createBlockData(material, states);
+        } catch (IllegalArgumentException e) {
+            logger.fine("Ignoring block data " + states + " for " + material + ": " + e.getMessage());
+            return INVALID;
+        }
+    }
+
+    /**
+     * Bring a state string into the bracketed form Bukkit parses, null if there are no states
+     */
+    private static String normalize(String data) {
+        if (data == null) {
+            return null;
+        }
+        String states = data.trim().toLowerCase().replace(" ", "");
+        if (states.startsWith("[") && states.endsWith("]")) {
+            states = states.substring(1, states.length() - 1);
+        }
+        return states.isEmpty() ? null : "[" + states + "]";
+    }
+}
@@ -0,0 +1,136 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.model.StructureData;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bounded hand-off between a block producer (AI generation) and the main-thread placer.
+ * Producers block while the queue is full, so at most {@code capacity} unplaced blocks are held.
+ */
+public class BlockStream {
+
+    private final BlockingQueue<StructureData.Block> queue;
+    @Getter
+    private final int capacity;
+    private final AtomicInteger received = new AtomicInteger();
+    // Index of the first block of each labelled section -> label
+    private final ConcurrentSkipListMap<Integer, String> sections = new ConcurrentSkipListMap<>();
+    // Called with every block accepted by push, e.g. to share the stream with other players
+    private volatile Consumer<StructureData.Block> listener;
+    private volatile boolean completed = false;
+    private volatile boolean cancelled = false;
+    @Getter
+    private volatile Throwable failure;
+
+    public BlockStream(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+    }
+
+    /**
+     * Push a block, waiting while the placer catches up
+     */
+    public void push(StructureData.Block block) {
+        try {
+            while (!cancelled) {
+                if (queue.offer(block, 250, TimeUnit.MILLISECONDS)) {
+                    received.incrementAndGet();
+                    if (listener != null) {
+                        listener.accept(block);
+                    }
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new CancellationException("Block stream was cancelled");
+    }
+
+    /**
+     * Set a listener called with every block once it has been queued
+     */
+    public void setListener(Consumer<StructureData.Block> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Label the blocks pushed from now on, e.g. with the chunk they belong to.
+     * Must be called by the producer thread between pushes.
+     */
+    public void markSection(String label) {
+        sections.put(received.get(), label);
+    }
+
+    /**
+     * Get the section label of the block at this position in the stream, or null if unlabelled
+     */
+    public String getSectionAt(int index) {
+        Map.Entry<Integer, String> entry = sections.floorEntry(index);
+        return entry != null ? entry.getValue() : null;
+    }
+
+    /**
+     * Take the next block without waiting, or null if none is ready
+     */
+    public StructureData.Block poll() {
+        return queue.poll();
+    }
+
+    /**
+     * Mark the stream as finished, no more blocks will be pushed
+     */
+    public void complete() {
+        this.completed = true;
+    }
+
+    /**
+     * Mark the stream as failed
+     */
+    public void fail(Throwable throwable) {
+        this.failure = throwable;
+        this.completed = true;
+    }
+
+    /**
+     * Cancel the stream, causing producers to stop on their next push
+     */
+    public void cancel() {
+        this.cancelled = true;
+        queue.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Check if the producer is done and every block has been taken
+     */
+    public boolean isDrained() {
+        return completed && queue.isEmpty();
+    }
+
+    /**
+     * Get number of blocks pushed so far
+     */
+    public int getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * Get number of blocks waiting to be placed
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+}
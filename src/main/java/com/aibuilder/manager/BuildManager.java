@@ -2,17 +2,18 @@ package com.aibuilder.manager;
 
 import com.aibuilder.AIStructureBuilder;
 import com.aibuilder.model.StructureData;
-import com.aibuilder.util.MaterialUtil;
 import lombok.Getter;
 import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
-import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Manages structure building operations
@@ -21,14 +22,27 @@ public class BuildManager {
     
     private final AIStructureBuilder plugin;
     @Getter
-    private final Map<UUID, BukkitTask> activeBuildTasks;
-    @Getter
     private final Map<UUID, Integer> buildProgress;
+    @Getter
+    private final TickMonitor tickMonitor;
+    @Getter
+    private final PlacementBudget placementBudget;
+    @Getter
+    private final BuildScheduler buildScheduler;
+    @Getter
+    private final BlockDataCache blockDataCache;
+    // Builds whose plan is still being compiled, each with a token telling a cancelled plan from a newer one
+    private final Map<UUID, Object> planning;
 
     public BuildManager(AIStructureBuilder plugin) {
         this.plugin = plugin;
-        this.activeBuildTasks = new ConcurrentHashMap<>();
         this.buildProgress = new ConcurrentHashMap<>();
+        this.tickMonitor = new TickMonitor(plugin);
+        this.placementBudget = new PlacementBudget(plugin, tickMonitor);
+        this.buildScheduler = new BuildScheduler(plugin, placementBudget);
+        this.blockDataCache = new BlockDataCache(plugin.getLogger());
+        this.planning = new ConcurrentHashMap<>();
+        tickMonitor.start();
     }
 
     /**
@@ -36,10 +50,10 @@ public class BuildManager {
      */
     public void buildStructure(Player player, StructureData structureData, Location startLocation) {
         UUID playerId = player.getUniqueId();
-        
+
         // Cancel existing build for this player
         cancelBuild(playerId);
-        
+
         // Validate structure
         if (!validateStructure(structureData)) {
             player.sendMessage(plugin.getMessage("building-failed", "Structure validation failed"));
@@ -51,60 +65,74 @@ public class BuildManager {
             plugin.getLogger().info("Starting build for " + player.getName() + ": " + structureData.getName());
         }
 
-        player.sendMessage(plugin.getMessage("building-started", structureData.getDescription()));        // Start building task
-        List<StructureData.Block> instructions = structureData.getBlocks();
+        player.sendMessage(plugin.getMessage("building-started", structureData.getDescription()));
+
+        // Plan the build off the main thread, then hand it to the scheduler
         buildProgress.put(playerId, 0);
+        int weight = buildScheduler.resolveWeight(player);
 
-        BukkitTask task = Bukkit.getScheduler().runTaskTimer(plugin, new Runnable() {
+        schedulePlanned(player, structureData.getBlocks(), startLocation, null, plan -> new BuildScheduler.Session(playerId, weight) {
+            private final ChunkPreloader preloader = new ChunkPreloader(plugin, plan, plugin.getConfigManager().getChunkPreloadAhead());
             private int index = 0;
-            
+
             @Override
-            public void run() {
-                try {
-                    int blocksPerTick = plugin.getConfigManager().getBlocksPerTick();
-                    int processed = 0;
-                      while (index < instructions.size() && processed < blocksPerTick) {
-                        StructureData.Block instruction = instructions.get(index);
-                        placeBlock(instruction, startLocation);
-                        index++;
-                        processed++;
-                    }
-                    
-                    // Update progress
-                    buildProgress.put(playerId, index);
-                      // Check if finished
-                    if (index >= instructions.size()) {
-                        // Building complete
-                        BukkitTask taskToCancel = activeBuildTasks.remove(playerId);
-                        buildProgress.remove(playerId);
-                        player.sendMessage(plugin.getMessage("building-completed"));
-                        
-                        if (plugin.getConfigManager().shouldLogBuilding()) {
-                            plugin.getLogger().info("Build completed for " + player.getName());
-                        }
-                        
-                        // Cancel this task safely
-                        if (taskToCancel != null) {
-                            taskToCancel.cancel();
-                        }
-                    }
-                      } catch (Exception e) {
-                    plugin.getLogger().severe("Error during building: " + e.getMessage());
-                    player.sendMessage(plugin.getMessage("building-failed", e.getMessage()));
-                    BukkitTask taskToCancel = activeBuildTasks.remove(playerId);
-                    buildProgress.remove(playerId);
-                    if (taskToCancel != null) {
-                        taskToCancel.cancel();
-                    }
+            protected boolean placeNext() {
+                if (index >= plan.size() || !preloader.isReady(index)) {
+                    return false;
                 }
+                plan.place(index++);
+                return true;
             }
-        }, 0L, plugin.getConfigManager().getBuildDelay());        activeBuildTasks.put(playerId, task);
-    }    /**
-     * Build structure with progress updates
+
+            @Override
+            protected boolean afterTick() {
+                // Update progress
+                buildProgress.put(playerId, index);
+                if (index < plan.size()) {
+                    preloader.preload();
+                    return false;
+                }
+
+                // Building complete
+                preloader.release();
+                buildProgress.remove(playerId);
+                player.sendMessage(plugin.getMessage("building-completed"));
+
+                if (plugin.getConfigManager().shouldLogBuilding()) {
+                    plugin.getLogger().info("Build completed for " + player.getName() + " (" + plan.size() + " blocks placed, " +
+                        plan.getSkippedCount() + " already in place)");
+                }
+                return true;
+            }
+
+            @Override
+            protected void fail(Exception e) {
+                preloader.release();
+                plugin.getLogger().severe("Error during building: " + e.getMessage());
+                player.sendMessage(plugin.getMessage("building-failed", e.getMessage()));
+                buildProgress.remove(playerId);
+            }
+
+            @Override
+            protected void cancel() {
+                preloader.release();
+            }
+        });
+    }
+
+    /**
+     * Build structure with progress updates, must be called on the main thread
      */
     public void buildStructureWithProgress(Player player, StructureData structureData, Consumer<String> progressCallback) {
+        buildStructureWithProgress(player, structureData, buildScheduler.resolveWeight(player), progressCallback);
+    }
+
+    /**
+     * Build structure with progress updates at a build weight resolved on the main thread, e.g. when the command was issued
+     */
+    public void buildStructureWithProgress(Player player, StructureData structureData, int weight, Consumer<String> progressCallback) {
         plugin.getLogger().info("buildStructureWithProgress called for player: " + player.getName());
-        
+
         Location startLocation = player.getLocation();
         UUID playerId = player.getUniqueId();
 
@@ -119,7 +147,7 @@ public class BuildManager {
         plugin.getLogger().info("Structure validation passed, proceeding to build");
 
         // Check if player is already building
-        if (activeBuildTasks.containsKey(playerId)) {
+        if (hasActiveBuild(playerId)) {
             progressCallback.accept("Build already in progress!");
             player.sendMessage(plugin.getMessage("build-in-progress"));
             return;
@@ -132,96 +160,259 @@ public class BuildManager {
         progressCallback.accept("Starting construction of " + structureData.getName() + "...");
         player.sendMessage(plugin.getMessage("building-started", structureData.getDescription()));
 
-        // Start building task
-        List<StructureData.Block> instructions = structureData.getBlocks();
+        // Plan the build off the main thread, then hand it to the scheduler
         buildProgress.put(playerId, 0);
-        
-        final int totalBlocks = instructions.size();        BukkitTask task = Bukkit.getScheduler().runTaskTimer(plugin, new Runnable() {
+
+        schedulePlanned(player, structureData.getBlocks(), startLocation, progressCallback, plan -> new BuildScheduler.Session(playerId, weight) {
+            // Placements left after skipping blocks already in place
+            private final int totalBlocks = plan.size();
+            private final int reportStep = Math.max(1, totalBlocks / 10);
+            private final ChunkPreloader preloader = new ChunkPreloader(plugin, plan, plugin.getConfigManager().getChunkPreloadAhead());
             private int index = 0;
-            
+            private int reported = 0;
+
             @Override
-            public void run() {
-                try {
-                    int blocksPerTick = plugin.getConfigManager().getBlocksPerTick();
-                    int processed = 0;
-                    
-                    while (index < instructions.size() && processed < blocksPerTick) {
-                        StructureData.Block instruction = instructions.get(index);
-                        placeBlock(instruction, startLocation);
-                        index++;
-                        processed++;
-                        
-                        // Update progress
-                        int progressPercent = (int) ((double) index / totalBlocks * 100);
-                        buildProgress.put(playerId, progressPercent);
-                        
-                        // Send progress updates every 10%
-                        if (index % Math.max(1, totalBlocks / 10) == 0) {
-                            progressCallback.accept("Construction progress: " + progressPercent + "% (" + index + "/" + totalBlocks + " blocks)");
-                        }
-                    }
-                    
-                    if (index >= instructions.size()) {
-                        // Building complete
-                        buildProgress.remove(playerId);
-                        BukkitTask taskToCancel = activeBuildTasks.remove(playerId);
-                        progressCallback.accept("Construction completed! Built " + totalBlocks + " blocks.");
-                        player.sendMessage(plugin.getMessage("building-completed", structureData.getName()));
-                        
-                        if (plugin.getConfigManager().shouldLogBuilding()) {
-                            plugin.getLogger().info("Build completed for " + player.getName() + ": " + structureData.getName());
-                        }
-                        
-                        if (taskToCancel != null) {
-                            taskToCancel.cancel();
-                        }
-                    }
-                } catch (Exception e) {
-                    buildProgress.remove(playerId);
-                    BukkitTask taskToCancel = activeBuildTasks.remove(playerId);
-                    progressCallback.accept("Build failed: " + e.getMessage());
-                    player.sendMessage(plugin.getMessage("building-failed"));
-                    plugin.getLogger().severe("Building failed for " + player.getName() + ": " + e.getMessage());
-                    if (taskToCancel != null) {
-                        taskToCancel.cancel();
-                    }
+            protected boolean placeNext() {
+                if (index >= totalBlocks || !preloader.isReady(index)) {
+                    return false;
                 }
+                plan.place(index++);
+                return true;
+            }
+
+            @Override
+            protected boolean afterTick() {
+                // Update progress
+                int progressPercent = (int) ((double) index / totalBlocks * 100);
+                buildProgress.put(playerId, progressPercent);
+
+                // Send progress updates every 10%
+                if (index / reportStep > reported && index < totalBlocks) {
+                    reported = index / reportStep;
+                    progressCallback.accept("Construction progress: " + progressPercent + "% (" + index + "/" + totalBlocks + " blocks)");
+                }
+
+                if (index < totalBlocks) {
+                    preloader.preload();
+                    return false;
+                }
+
+                // Building complete
+                preloader.release();
+                buildProgress.remove(playerId);
+                progressCallback.accept("Construction completed! Built " + totalBlocks + " blocks" +
+                    (plan.getSkippedCount() > 0 ? ", " + plan.getSkippedCount() + " were already in place." : "."));
+                player.sendMessage(plugin.getMessage("building-completed", structureData.getName()));
+
+                if (plugin.getConfigManager().shouldLogBuilding()) {
+                    plugin.getLogger().info("Build completed for " + player.getName() + ": " + structureData.getName());
+                }
+                return true;
+            }
+
+            @Override
+            protected void fail(Exception e) {
+                preloader.release();
+                buildProgress.remove(playerId);
+                progressCallback.accept("Build failed: " + e.getMessage());
+                player.sendMessage(plugin.getMessage("building-failed"));
+                plugin.getLogger().severe("Building failed for " + player.getName() + ": " + e.getMessage());
             }
-        }, 0L, plugin.getConfigManager().getBuildDelay());
 
-        activeBuildTasks.put(playerId, task);
+            @Override
+            protected void cancel() {
+                preloader.release();
+            }
+        });
     }
 
     /**
-     * Place a block according to build instruction
+     * Build a structure whose blocks are still being generated, placing them as they arrive
      */
-    private void placeBlock(StructureData.Block instruction, Location startLocation) {
-        Location blockLocation = startLocation.clone().add(instruction.getX(), instruction.getY(), instruction.getZ());
-        
-        // Get material safely
-        Material material = MaterialUtil.getMaterialSafely(instruction.getMaterial());
-        if (!MaterialUtil.isSafeBuildingMaterial(material)) {
-            plugin.getLogger().warning("Unsafe material: " + instruction.getMaterial() + ", using STONE instead");
-            material = Material.STONE;
+    public boolean buildStreamingStructure(Player player, BlockStream blockStream, Consumer<String> progressCallback) {
+        Location startLocation = player.getLocation();
+        UUID playerId = player.getUniqueId();
+
+        if (hasActiveBuild(playerId)) {
+            progressCallback.accept("Build already in progress!");
+            player.sendMessage(plugin.getMessage("build-in-progress"));
+            blockStream.cancel();
+            return false;
         }
-        
-        // Place block
-        blockLocation.getBlock().setType(material);
-        
-        // Apply block data if specified
-        if (instruction.getData() != null && !instruction.getData().isEmpty()) {
-            // Handle block data (stairs direction, etc.)
-            // This is a simplified implementation
-            try {
-                // You can extend this to handle more complex block data
-                if (material.name().contains("STAIRS")) {
-                    // Handle stairs orientation
-                    // This would need more complex implementation for full support
+
+        if (plugin.getConfigManager().shouldLogBuilding()) {
+            plugin.getLogger().info("Starting streamed build for " + player.getName());
+        }
+
+        final int maxSize = plugin.getConfigManager().getMaxStructureSize();
+        final int maxTotalBlocks = Math.min(50000, maxSize);
+        final World world = startLocation.getWorld();
+        final int originX = startLocation.getBlockX();
+        final int originY = startLocation.getBlockY();
+        final int originZ = startLocation.getBlockZ();
+        final boolean orderedPlacement = plugin.getConfigManager().isOrderedPlacementEnabled();
+        buildProgress.put(playerId, 0);
+
+        buildScheduler.submit(new BuildScheduler.Session(playerId, buildScheduler.resolveWeight(player)) {
+            private int placed = 0;
+            private int taken = 0;
+            private String section = null;
+            private int nextReport = 100;
+            // Blocks arrive one at a time, so materials are resolved as they first appear
+            private final PlacementPlan.Palette palette = new PlacementPlan.Palette(blockDataCache);
+
+            @Override
+            protected boolean placeNext() {
+                StructureData.Block instruction = blockStream.poll();
+                if (instruction == null) {
+                    return false;
+                }
+
+                // Announce when placement moves on to the next labelled section
+                String currentSection = blockStream.getSectionAt(taken++);
+                if (currentSection != null && !currentSection.equals(section)) {
+                    section = currentSection;
+                    progressCallback.accept("Building " + section);
+                }
+
+                if (!isWithinBounds(instruction, maxSize)) {
+                    return true;
+                }
+                if (placed >= maxTotalBlocks) {
+                    plugin.getLogger().warning("Streamed build reached block limit (" + maxTotalBlocks + "), stopping");
+                    blockStream.cancel();
+                    blockStream.complete();
+                    return false;
+                }
+
+                // Streamed blocks cannot be reordered, only blocks that need their neighbours get physics
+                int id = palette.resolve(instruction.getMaterial(), instruction.getData());
+                palette.place(id, world.getBlockAt(originX + instruction.getX(), originY + instruction.getY(), originZ + instruction.getZ()),
+                    !orderedPlacement || palette.getPhase(id) == PlacementPlan.PHASE_ATTACHED);
+                placed++;
+                return true;
+            }
+
+            @Override
+            protected boolean afterTick() {
+                if (placed >= nextReport) {
+                    progressCallback.accept("Construction progress: " + placed + " blocks placed (" +
+                        blockStream.getPendingCount() + " queued)");
+                    nextReport = placed + Math.max(100, placed / 2);
+                }
+
+                if (!blockStream.isDrained()) {
+                    return false;
+                }
+
+                buildProgress.remove(playerId);
+                if (blockStream.getFailure() != null) {
+                    progressCallback.accept("Build failed: " + blockStream.getFailure().getMessage());
+                    player.sendMessage(plugin.getMessage("building-failed", blockStream.getFailure().getMessage()));
+                } else {
+                    progressCallback.accept("Construction completed! Built " + placed + " blocks.");
+                    player.sendMessage(plugin.getMessage("building-completed"));
+                }
+
+                if (plugin.getConfigManager().shouldLogBuilding()) {
+                    plugin.getLogger().info("Streamed build completed for " + player.getName() + " (" + placed + " blocks)");
                 }
-            } catch (Exception e) {
-                plugin.getLogger().warning("Failed to apply block data: " + e.getMessage());
+                return true;
             }
+
+            @Override
+            protected void fail(Exception e) {
+                buildProgress.remove(playerId);
+                blockStream.cancel();
+                progressCallback.accept("Build failed: " + e.getMessage());
+                player.sendMessage(plugin.getMessage("building-failed", e.getMessage()));
+                plugin.getLogger().severe("Streamed build failed for " + player.getName() + ": " + e.getMessage());
+            }
+
+            @Override
+            protected void cancel() {
+                blockStream.cancel();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Check if a block lies within the configured structure bounds
+     */
+    private boolean isWithinBounds(StructureData.Block instruction, int maxSize) {
+        return instruction != null &&
+            Math.abs(instruction.getX()) <= maxSize &&
+            Math.abs(instruction.getY()) <= maxSize &&
+            Math.abs(instruction.getZ()) <= maxSize;
+    }
+
+    /**
+     * Compile a plan for the blocks on a worker thread, then build the session on it and hand it to the scheduler on the main thread
+     */
+    private void schedulePlanned(Player player, List<StructureData.Block> blocks, Location startLocation,
+                                 Consumer<String> progressCallback, Function<PlacementPlan, BuildScheduler.Session> sessionFactory) {
+        UUID playerId = player.getUniqueId();
+        Object token = new Object();
+        planning.put(playerId, token);
+        boolean ordered = plugin.getConfigManager().isOrderedPlacementEnabled();
+        boolean skipUnchanged = plugin.getConfigManager().isSkipUnchangedBlocksEnabled();
+        ExecutorManager executors = plugin.getExecutorManager();
+
+        executors.supplyCpu(() -> PlacementPlan.compile(blocks, startLocation, new PlacementPlan.Palette(blockDataCache), ordered), progressCallback)
+            .thenCompose(plan -> !skipUnchanged ? CompletableFuture.completedFuture(plan) :
+                snapshotChunks(plan).thenApplyAsync(snapshots -> {
+                    int skipped = plan.skipUnchanged(snapshots);
+                    if (skipped > 0 && progressCallback != null) {
+                        progressCallback.accept("Skipping " + skipped + " blocks that are already in place");
+                    }
+                    return plan;
+                }, executors.getCpuExecutor()))
+            .whenComplete((plan, throwable) -> {
+                // Sessions touch the world and replace the player's current build, so the outcome is handled on the main thread
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    // Drop plans of builds cancelled or replaced while planning
+                    if (!planning.remove(playerId, token)) {
+                        return;
+                    }
+                    if (throwable != null) {
+                        buildProgress.remove(playerId);
+                        plugin.getLogger().severe("Planning build for " + player.getName() + " failed: " + throwable.getMessage());
+                        player.sendMessage(plugin.getMessage("building-failed", throwable.getMessage()));
+                        return;
+                    }
+                    buildScheduler.submit(sessionFactory.apply(plan));
+                });
+            });
+    }
+
+    /**
+     * Take snapshots of the loaded chunks a plan touches on the main thread, null for chunks not loaded
+     */
+    private CompletableFuture<ChunkSnapshot[]> snapshotChunks(PlacementPlan plan) {
+        CompletableFuture<ChunkSnapshot[]> future = new CompletableFuture<>();
+        try {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                try {
+                    World world = plan.getWorld();
+                    ChunkSnapshot[] snapshots = new ChunkSnapshot[plan.getChunkCount()];
+                    for (int chunk = 0; chunk < snapshots.length; chunk++) {
+                        // Unloaded chunks are not loaded just to compare, their blocks are all placed
+                        if (world.isChunkLoaded(plan.getChunkX(chunk), plan.getChunkZ(chunk))) {
+                            snapshots[chunk] = world.getChunkAt(plan.getChunkX(chunk), plan.getChunkZ(chunk))
+                                .getChunkSnapshot(false, false, false);
+                        }
+                    }
+                    future.complete(snapshots);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            // The plugin is being disabled
+            future.completeExceptionally(e);
         }
+        return future;
     }    /**
      * Validate structure before building
      */
@@ -270,12 +461,9 @@ public class BuildManager {
      */
     public void cancelBuild(UUID playerId) {
         try {
-            BukkitTask task = activeBuildTasks.remove(playerId);
-            if (task != null && !task.isCancelled()) {
-                task.cancel();
-                if (plugin.getConfigManager().shouldLogBuilding()) {
-                    plugin.getLogger().info("Cancelled build task for player: " + playerId);
-                }
+            boolean cancelled = planning.remove(playerId) != null | buildScheduler.cancel(playerId);
+            if (cancelled && plugin.getConfigManager().shouldLogBuilding()) {
+                plugin.getLogger().info("Cancelled build task for player: " + playerId);
             }
             buildProgress.remove(playerId);
         } catch (Exception e) {
@@ -287,10 +475,8 @@ public class BuildManager {
      * Cancel all active builds
      */
     public void cancelAllBuilds() {
-        for (BukkitTask task : activeBuildTasks.values()) {
-            task.cancel();
-        }
-        activeBuildTasks.clear();
+        planning.clear();
+        buildScheduler.cancelAll();
         buildProgress.clear();
     }
 
@@ -298,7 +484,7 @@ public class BuildManager {
      * Check if player has an active build
      */
     public boolean hasActiveBuild(UUID playerId) {
-        return activeBuildTasks.containsKey(playerId);
+        return planning.containsKey(playerId) || buildScheduler.isActive(playerId);
     }
     
     /**
@@ -311,7 +497,7 @@ public class BuildManager {
      * Get count of active builds
      */
     public int getActiveBuildCount() {
-        return activeBuildTasks.size();
+        return planning.size() + buildScheduler.getActiveCount();
     }
     
     /**
@@ -0,0 +1,239 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs every active build from one task. Each run takes a single placement budget for the whole server and
+ * hands it out in weighted round-robin turns: a build places as many blocks per turn as its weight, until the
+ * budget is spent or no build has blocks ready. The build that goes first rotates every run, so a budget that
+ * runs out mid-round does not always cut off the same builds. Total placement cost therefore does not grow
+ * with the number of builds.
+ */
+public class BuildScheduler {
+
+    private final AIStructureBuilder plugin;
+    private final PlacementBudget placementBudget;
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+    private BukkitTask task;
+    private int rotation = 0;
+
+    public BuildScheduler(AIStructureBuilder plugin, PlacementBudget placementBudget) {
+        this.plugin = plugin;
+        this.placementBudget = placementBudget;
+    }
+
+    /**
+     * Add a build, replacing any earlier build of the same player. Safe to call from any thread.
+     */
+    public void submit(Session session) {
+        Session previous = sessions.put(session.getPlayerId(), session);
+        if (previous != null) {
+            previous.cancel();
+        }
+        ensureRunning();
+    }
+
+    /**
+     * Remove and cancel the build of a player, returning false if there was none
+     */
+    public boolean cancel(UUID playerId) {
+        Session session = sessions.remove(playerId);
+        if (session == null) {
+            return false;
+        }
+        session.cancel();
+        return true;
+    }
+
+    /**
+     * Cancel every build and stop the scheduler task
+     */
+    public synchronized void cancelAll() {
+        for (Session session : sessions.values()) {
+            session.cancel();
+        }
+        sessions.clear();
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public boolean isActive(UUID playerId) {
+        return sessions.containsKey(playerId);
+    }
+
+    public int getActiveCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Get the weight of a player's build, 0 if the player is not building
+     */
+    public int getWeight(UUID playerId) {
+        Session session = sessions.get(playerId);
+        return session == null ? 0 : session.getWeight();
+    }
+
+    /**
+     * Get the weight for a player's builds: a weight configured for the player by name or UUID,
+     * else the highest weight of a permission the player has, else the default weight
+     */
+    public int resolveWeight(Player player) {
+        ConfigManager config = plugin.getConfigManager();
+        Map<String, Integer> playerWeights = config.getPlayerBuildWeights();
+        Integer weight = playerWeights.get(player.getUniqueId().toString());
+        if (weight == null) {
+            weight = playerWeights.get(player.getName().toLowerCase());
+        }
+        if (weight == null) {
+            for (Map.Entry<String, Integer> entry : config.getPermissionBuildWeights().entrySet()) {
+                if (player.hasPermission(entry.getKey()) && (weight == null || entry.getValue() > weight)) {
+                    weight = entry.getValue();
+                }
+            }
+        }
+        return weight != null ? weight : config.getDefaultBuildWeight();
+    }
+
+    private synchronized void ensureRunning() {
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::run, 0L, placementBudget.getTaskPeriod());
+        }
+    }
+
+    /**
+     * Stop the task once no builds are left, so a changed build delay applies to the next build
+     */
+    private synchronized void stopIfIdle() {
+        if (sessions.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void run() {
+        List<Session> order = new ArrayList<>(sessions.values());
+        if (order.isEmpty()) {
+            stopIfIdle();
+            return;
+        }
+
+        int count = order.size();
+        int first = Math.floorMod(rotation++, count);
+        boolean[] waiting = new boolean[count];
+        int ready = count;
+
+        PlacementBudget.Slice slice = placementBudget.startSlice();
+        rounds:
+        while (ready > 0) {
+            for (int i = 0; i < count; i++) {
+                int turn = (first + i) % count;
+                if (waiting[turn]) {
+                    continue;
+                }
+                Session session = order.get(turn);
+                for (int placed = 0; placed < session.getWeight(); placed++) {
+                    if (!slice.hasTime()) {
+                        break rounds;
+                    }
+                    if (!place(session)) {
+                        waiting[turn] = true;
+                        ready--;
+                        break;
+                    }
+                    slice.placed();
+                }
+            }
+        }
+        slice.finish();
+
+        for (Session session : order) {
+            // Skip builds cancelled or failed during this run
+            if (sessions.get(session.getPlayerId()) != session) {
+                continue;
+            }
+            try {
+                if (session.afterTick()) {
+                    sessions.remove(session.getPlayerId(), session);
+                }
+            } catch (Exception e) {
+                fail(session, e);
+            }
+        }
+        stopIfIdle();
+    }
+
+    private boolean place(Session session) {
+        if (sessions.get(session.getPlayerId()) != session) {
+            return false;
+        }
+        try {
+            return session.placeNext();
+        } catch (Exception e) {
+            fail(session, e);
+            return false;
+        }
+    }
+
+    private void fail(Session session, Exception e) {
+        if (sessions.remove(session.getPlayerId(), session)) {
+            session.fail(e);
+        }
+    }
+
+    /**
+     * One player's build as seen by the scheduler. Called on the main thread only.
+     */
+    public abstract static class Session {
+
+        private final UUID playerId;
+        private final int weight;
+
+        protected Session(UUID playerId, int weight) {
+            this.playerId = playerId;
+            this.weight = Math.max(1, weight);
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        /**
+         * Get blocks placed per round-robin turn
+         */
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * Place the next block, returning false if no block is ready this tick
+         */
+        protected abstract boolean placeNext();
+
+        /**
+         * Report progress after the tick's placement, returning true once the build is finished
+         */
+        protected abstract boolean afterTick();
+
+        /**
+         * Handle an error thrown while building, the session is already removed
+         */
+        protected abstract void fail(Exception e);
+
+        /**
+         * Release resources of a build that is cancelled or replaced
+         */
+        protected void cancel() {
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.StructureData;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import lombok.Getter;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only checkpoint of a chunked generation job in the plugin data folder.
+ * Holds the overall plan and every chunk that was generated successfully, one JSON object per line,
+ * so an interrupted job can pick up where it stopped instead of paying for the same API calls again.
+ */
+public class ChunkJournal {
+
+    private static final String FILE_SUFFIX = ".journal";
+    private static final Type BLOCK_LIST = new TypeToken<List<StructureData.Block>>() {}.getType();
+
+    private final AIStructureBuilder plugin;
+    private final Gson gson;
+    private final File file;
+    private boolean closed = false;
+
+    @Getter
+    private String plan;
+    @Getter
+    private int chunkSize;
+    @Getter
+    private int chunksPerSide;
+    // Chunks restored from the file, by plan index
+    @Getter
+    private final Map<Integer, List<StructureData.Block>> completedChunks = new HashMap<>();
+
+    private ChunkJournal(AIStructureBuilder plugin, Gson gson, File file) {
+        this.plugin = plugin;
+        this.gson = gson;
+        this.file = file;
+    }
+
+    /**
+     * Open the journal of a job, restoring its contents if a previous run left one behind.
+     * A resumed job keeps the chunk layout it was planned with.
+     */
+    public static ChunkJournal open(AIStructureBuilder plugin, Gson gson, UUID requester, String description, int targetSize) {
+        File folder = getFolder(plugin);
+        if (!folder.exists() && !folder.mkdirs()) {
+            plugin.getLogger().warning("Could not create chunk journal folder: " + folder.getPath());
+        }
+
+        String key = StructureCache.createKey(requester + "|" + description, targetSize, "chunks", 0);
+        ChunkJournal journal = new ChunkJournal(plugin, gson, new File(folder, key + FILE_SUFFIX));
+        journal.load();
+        return journal;
+    }
+
+    /**
+     * Delete journals of jobs that were abandoned too long ago to be resumed
+     */
+    public static void pruneStale(AIStructureBuilder plugin) {
+        File[] files = getFolder(plugin).listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+
+        long maxAge = TimeUnit.HOURS.toMillis(plugin.getConfigManager().getChunkJournalMaxAgeHours());
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (now - file.lastModified() > maxAge && !file.delete()) {
+                plugin.getLogger().fine("Could not delete stale chunk journal " + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Check if a previous run got far enough to skip the planning request
+     */
+    public boolean hasPlan() {
+        return plan != null;
+    }
+
+    /**
+     * Record the overall plan, starting a fresh journal
+     */
+    public synchronized void writePlan(String plan, int chunkSize, int chunksPerSide) {
+        this.plan = plan;
+        this.chunkSize = chunkSize;
+        this.chunksPerSide = chunksPerSide;
+        JsonObject entry = new JsonObject();
+        entry.addProperty("plan", plan);
+        entry.addProperty("chunkSize", chunkSize);
+        entry.addProperty("chunksPerSide", chunksPerSide);
+        write(entry, false);
+    }
+
+    /**
+     * Record a successfully generated chunk with its final blocks
+     */
+    public synchronized void appendChunk(int index, int chunkX, int chunkZ, List<StructureData.Block> blocks) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("chunk", index);
+        entry.addProperty("x", chunkX);
+        entry.addProperty("z", chunkZ);
+        entry.add("blocks", gson.toJsonTree(blocks, BLOCK_LIST));
+        write(entry, true);
+    }
+
+    /**
+     * Delete the journal once the job has finished, later appends are ignored
+     */
+    public synchronized void delete() {
+        closed = true;
+        if (file.exists() && !file.delete()) {
+            plugin.getLogger().warning("Could not delete finished chunk journal " + file.getName());
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonObject entry;
+                try {
+                    entry = JsonParser.parseString(line).getAsJsonObject();
+                } catch (RuntimeException e) {
+                    // The last line may be cut off if the server stopped while writing it
+                    continue;
+                }
+
+                if (entry.has("plan")) {
+                    plan = entry.get("plan").getAsString();
+                    chunkSize = entry.get("chunkSize").getAsInt();
+                    chunksPerSide = entry.get("chunksPerSide").getAsInt();
+                } else if (entry.has("chunk") && plan != null) {
+                    List<StructureData.Block> blocks = gson.fromJson(entry.get("blocks"), BLOCK_LIST);
+                    if (blocks != null) {
+                        completedChunks.put(entry.get("chunk").getAsInt(), BlockBuffer.copyOf(blocks).asList());
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("Discarding unreadable chunk journal " + file.getName() + ": " + e.getMessage());
+        }
+
+        if (plan == null) {
+            completedChunks.clear();
+        }
+    }
+
+    private void write(JsonObject entry, boolean append) {
+        if (closed) {
+            return;
+        }
+
+        byte[] line = (gson.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            if (append) {
+                Files.write(file.toPath(), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } else {
+                Files.write(file.toPath(), line, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to write chunk journal " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static File getFolder(AIStructureBuilder plugin) {
+        return new File(plugin.getDataFolder(), "journals");
+    }
+}
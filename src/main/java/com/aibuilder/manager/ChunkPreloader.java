@@ -0,0 +1,171 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps the chunks a placement plan is about to reach loaded, so placing never waits for a synchronous chunk
+ * load. Upcoming chunks are loaded ahead of the placer and held with plugin chunk tickets; each chunk is
+ * released once the plan has moved past its last block. Paper's getChunkAtAsync loads chunks off the main
+ * thread; on Spigot, where it does not exist, one upcoming chunk is loaded per tick instead.
+ * Main thread only, except release() which can be called from anywhere.
+ */
+public class ChunkPreloader {
+
+    private static final byte NONE = 0;
+    private static final byte LOADING = 1;
+    private static final byte READY = 2;
+    private static final byte RELEASED = 3;
+
+    private static final Method GET_CHUNK_AT_ASYNC = findGetChunkAtAsync();
+
+    private final AIStructureBuilder plugin;
+    private final PlacementPlan plan;
+    private final World world;
+    private final int ahead;
+    private final byte[] chunkStates;
+    // Last run of every chunk, the chunk is released when the plan leaves it
+    private final int[] lastRuns;
+
+    private int run = 0;
+    private int nextRequest = 0;
+    private int held = 0;
+    private boolean released = false;
+
+    /**
+     * Create a preloader keeping up to the given number of chunks loaded besides the one being placed in
+     */
+    public ChunkPreloader(AIStructureBuilder plugin, PlacementPlan plan, int ahead) {
+        this.plugin = plugin;
+        this.plan = plan;
+        this.world = plan.getWorld();
+        this.ahead = Math.max(0, ahead);
+        this.chunkStates = new byte[plan.getChunkCount()];
+        this.lastRuns = new int[plan.getChunkCount()];
+        for (int r = 0; r < plan.getRunCount(); r++) {
+            lastRuns[plan.getRunChunk(r)] = r;
+        }
+    }
+
+    /**
+     * Check if the chunk of a step is loaded, releasing chunks the plan has moved past.
+     * Returns false while the chunk is still loading.
+     */
+    public boolean isReady(int step) {
+        if (plan.getRunCount() == 0) {
+            return true;
+        }
+        while (run + 1 < plan.getRunCount() && plan.getRunStart(run + 1) <= step) {
+            int left = plan.getRunChunk(run++);
+            if (lastRuns[left] < run) {
+                releaseChunk(left);
+            }
+        }
+
+        int chunk = plan.getRunChunk(run);
+        if (chunkStates[chunk] == NONE) {
+            // Preloading has not reached this chunk yet
+            request(chunk, false);
+        }
+        return chunkStates[chunk] == READY;
+    }
+
+    /**
+     * Request upcoming chunks, call once per tick
+     */
+    public void preload() {
+        boolean async = GET_CHUNK_AT_ASYNC != null;
+        while (nextRequest < plan.getRunCount() && held <= ahead) {
+            int chunk = plan.getRunChunk(nextRequest);
+            if (chunkStates[chunk] == NONE) {
+                if (!async && !world.isChunkLoaded(plan.getChunkX(chunk), plan.getChunkZ(chunk))) {
+                    // Without async loading, spread synchronous loads over ticks
+                    request(chunk, true);
+                    nextRequest++;
+                    return;
+                }
+                request(chunk, false);
+            }
+            nextRequest++;
+        }
+    }
+
+    /**
+     * Get number of chunks currently loading or held
+     */
+    public int getHeldCount() {
+        return held;
+    }
+
+    /**
+     * Release every chunk, once the build finishes or is cancelled
+     */
+    public void release() {
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(plugin, this::release);
+            return;
+        }
+        released = true;
+        for (int chunk = 0; chunk < chunkStates.length; chunk++) {
+            releaseChunk(chunk);
+        }
+    }
+
+    private void request(int chunk, boolean now) {
+        if (released) {
+            return;
+        }
+        int x = plan.getChunkX(chunk);
+        int z = plan.getChunkZ(chunk);
+        held++;
+
+        if (now || world.isChunkLoaded(x, z) || GET_CHUNK_AT_ASYNC == null) {
+            // Adding a ticket loads the chunk if needed
+            world.addPluginChunkTicket(x, z, plugin);
+            chunkStates[chunk] = READY;
+            return;
+        }
+
+        chunkStates[chunk] = LOADING;
+        try {
+            CompletableFuture<?> future = (CompletableFuture<?>) GET_CHUNK_AT_ASYNC.invoke(world, x, z);
+            // Paper completes chunk futures on the main thread
+            future.whenComplete((loaded, throwable) -> {
+                if (chunkStates[chunk] != LOADING) {
+                    return;
+                }
+                if (throwable != null) {
+                    plugin.getLogger().warning("Preloading chunk " + x + "," + z + " failed: " + throwable.getMessage());
+                }
+                world.addPluginChunkTicket(x, z, plugin);
+                chunkStates[chunk] = READY;
+            });
+        } catch (ReflectiveOperationException e) {
+            world.addPluginChunkTicket(x, z, plugin);
+            chunkStates[chunk] = READY;
+        }
+    }
+
+    private void releaseChunk(int chunk) {
+        byte state = chunkStates[chunk];
+        if (state == READY) {
+            world.removePluginChunkTicket(plan.getChunkX(chunk), plan.getChunkZ(chunk), plugin);
+        }
+        if (state == READY || state == LOADING) {
+            held--;
+        }
+        chunkStates[chunk] = RELEASED;
+    }
+
+    private static Method findGetChunkAtAsync() {
+        try {
+            return World.class.getMethod("getChunkAtAsync", int.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
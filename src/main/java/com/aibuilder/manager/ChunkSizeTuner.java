@@ -0,0 +1,117 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.model.GeminiResponse;
+
+/**
+ * Learns how many output tokens a chunk costs per block column and picks the chunk size that lands a
+ * chunk response near the target output size. Truncated responses make it pick smaller chunks,
+ * responses far below the target make it pick larger ones (fewer requests for the same structure).
+ */
+public class ChunkSizeTuner {
+
+    // Weight of the newest sample in the moving averages
+    private static final double ALPHA = 0.2;
+    private static final int MIN_SAMPLES = 3;
+
+    private final AIStructureBuilder plugin;
+
+    private double tokensPerColumn = -1;
+    private double truncationRate = 0;
+    private double blocksPerChunk = 0;
+    private int samples = 0;
+    private long totalChunks = 0;
+    private long truncatedChunks = 0;
+    private long splitChunks = 0;
+    private long outputTokens = 0;
+
+    public ChunkSizeTuner(AIStructureBuilder plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Record a chunk response for a region of the given width and depth
+     */
+    public synchronized void record(int width, int depth, GeminiResponse response, int recoveredBlocks) {
+        totalChunks++;
+        boolean truncated = response.isTruncated();
+        if (truncated) {
+            truncatedChunks++;
+        }
+
+        // Without usageMetadata fall back to roughly four characters per token
+        int tokens = response.getOutputTokens() >= 0 ? response.getOutputTokens() : response.getText().length() / 4;
+        outputTokens += tokens;
+
+        // A truncated response only tells us the chunk needed at least this much
+        double perColumn = (double) tokens / Math.max(1, width * depth);
+        tokensPerColumn = tokensPerColumn < 0 ? perColumn : ALPHA * perColumn + (1 - ALPHA) * tokensPerColumn;
+        truncationRate = ALPHA * (truncated ? 1 : 0) + (1 - ALPHA) * truncationRate;
+        blocksPerChunk = ALPHA * recoveredBlocks + (1 - ALPHA) * blocksPerChunk;
+        samples++;
+    }
+
+    /**
+     * Record that a truncated chunk was split into smaller regions
+     */
+    public synchronized void recordSplit() {
+        splitChunks++;
+    }
+
+    /**
+     * Get the chunk size to plan the next structure with
+     */
+    public synchronized int getRecommendedChunkSize() {
+        int configured = plugin.getConfigManager().getChunkSize();
+        if (!plugin.getConfigManager().isAdaptiveChunkSizeEnabled() || samples < MIN_SAMPLES || tokensPerColumn <= 0) {
+            return configured;
+        }
+
+        double targetTokens = plugin.getConfigManager().getMaxTokens() * plugin.getConfigManager().getAdaptiveChunkTargetRatio();
+        // Back off further while truncations keep happening
+        double size = Math.sqrt(targetTokens / tokensPerColumn) * (1 - truncationRate / 2);
+        return clampChunkSize((int) size);
+    }
+
+    /**
+     * Check if a region is still large enough to be split into quarters
+     */
+    public boolean canSplit(int regionSize) {
+        return plugin.getConfigManager().isAdaptiveChunkSizeEnabled() &&
+            regionSize / 2 >= plugin.getConfigManager().getAdaptiveChunkMinSize();
+    }
+
+    public synchronized long getTotalChunks() {
+        return totalChunks;
+    }
+
+    public synchronized long getTruncatedChunks() {
+        return truncatedChunks;
+    }
+
+    public synchronized long getSplitChunks() {
+        return splitChunks;
+    }
+
+    /**
+     * Get average output tokens per chunk response
+     */
+    public synchronized long getAverageOutputTokens() {
+        return totalChunks > 0 ? outputTokens / totalChunks : 0;
+    }
+
+    /**
+     * Get moving average of blocks recovered from a chunk response
+     */
+    public synchronized int getAverageBlocksPerChunk() {
+        return (int) Math.round(blocksPerChunk);
+    }
+
+    private int clampChunkSize(int size) {
+        int min = plugin.getConfigManager().getAdaptiveChunkMinSize();
+        int max = Math.max(min, plugin.getConfigManager().getAdaptiveChunkMaxSize());
+        // Multiples of four keep the grid and the fallback pattern regular
+        int rounded = size / 4 * 4;
+        return Math.max(min, Math.min(max, rounded));
+    }
+}
@@ -1,15 +1,24 @@
 package com.aibuilder.manager;
 
 import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.GeminiResponse;
 import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.BlockMerger;
+import com.aibuilder.processor.ChunkStreamMerger;
+import com.aibuilder.processor.ChunkTransform;
 import com.aibuilder.processor.EnhancedResponseProcessor;
+import com.aibuilder.processor.PrimitiveExpander;
 import com.google.gson.Gson;
 import lombok.Getter;
-import okhttp3.*;
 
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -17,9 +26,19 @@ import java.util.function.Consumer;
  */
 public class ChunkedGenerationManager {
       private final AIStructureBuilder plugin;
-    private final OkHttpClient httpClient;
+    private final GeminiTransport transport;
+    private final RequestScheduler requestScheduler;
+    private final RetryScheduler retryScheduler;
     private final Gson gson;
     private final EnhancedResponseProcessor responseProcessor;
+    @Getter
+    private final ChunkSizeTuner chunkSizeTuner;
+    
+    // Chunk-local blocks per template key, least recently used first
+    private final LinkedHashMap<String, CompletableFuture<List<StructureData.Block>>> chunkTemplates =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicInteger templateRequests = new AtomicInteger();
+    private final AtomicInteger templateHits = new AtomicInteger();
     
     @Getter
     private static class ChunkInfo {
@@ -27,118 +46,400 @@ public class ChunkedGenerationManager {
         private final int chunkZ;
         private final String description;
         private final String context;
+        // Chunk description without its position, equal for chunks that can share a template
+        private final String templateDescription;
         
-        public ChunkInfo(int chunkX, int chunkZ, String description, String context) {
+        public ChunkInfo(int chunkX, int chunkZ, String description, String context, String templateDescription) {
             this.chunkX = chunkX;
             this.chunkZ = chunkZ;
             this.description = description;
             this.context = context;
+            this.templateDescription = templateDescription;
         }
     }
       public ChunkedGenerationManager(AIStructureBuilder plugin) {
         this.plugin = plugin;
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(plugin.getConfigManager().getConnectTimeout(), java.util.concurrent.TimeUnit.SECONDS)
-                .readTimeout(plugin.getConfigManager().getReadTimeout(), java.util.concurrent.TimeUnit.SECONDS)
-                .writeTimeout(plugin.getConfigManager().getWriteTimeout(), java.util.concurrent.TimeUnit.SECONDS)
-                .build();
+        this.transport = plugin.getGeminiTransport();
+        this.requestScheduler = plugin.getRequestScheduler();
+        this.retryScheduler = plugin.getRetryScheduler();
         this.gson = new Gson();
         this.responseProcessor = new EnhancedResponseProcessor(plugin);
+        this.chunkSizeTuner = new ChunkSizeTuner(plugin);
+        ChunkJournal.pruneStale(plugin);
     }
     
     /**
-     * Generate a large structure using chunked approach
+     * A chunk plan ready for generation
      */
-    public CompletableFuture<StructureData> generateLargeStructure(String description, int targetSize, Consumer<String> progressCallback) {
-        return CompletableFuture.supplyAsync(() -> {
+    private static class LargeStructurePlan {
+        private final List<ChunkInfo> chunks;
+        private final int chunkSize;
+        private final int chunksPerSide;
+        // Null when journaling is disabled
+        private final ChunkJournal journal;
+
+        private LargeStructurePlan(List<ChunkInfo> chunks, int chunkSize, int chunksPerSide, ChunkJournal journal) {
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+            this.chunksPerSide = chunksPerSide;
+            this.journal = journal;
+        }
+    }
+
+    /**
+     * Generates chunks with a bounded number of requests in flight and hands each finished chunk to the
+     * consumer in plan order. The consumer runs on a stream thread, one chunk at a time, and may block.
+     */
+    private class ChunkPipeline {
+        private final List<ChunkInfo> chunks;
+        private final int chunkSize;
+        private final ChunkJournal journal;
+        private final UUID requester;
+        private final RequestScheduler.Priority priority;
+        private final Consumer<String> progressCallback;
+        private final BiConsumer<Integer, List<StructureData.Block>> chunkConsumer;
+        private final int concurrency;
+        private final int lookahead;
+
+        private final Map<Integer, List<StructureData.Block>> ready = new HashMap<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private int nextToStart = 0;
+        private int nextToEmit = 0;
+        private int inFlight = 0;
+        private int generated = 0;
+        private boolean draining = false;
+
+        private ChunkPipeline(LargeStructurePlan plan, UUID requester, RequestScheduler.Priority priority,
+                              Consumer<String> progressCallback, BiConsumer<Integer, List<StructureData.Block>> chunkConsumer) {
+            this.chunks = plan.chunks;
+            this.chunkSize = plan.chunkSize;
+            this.journal = plan.journal;
+            this.requester = requester;
+            this.priority = priority;
+            this.progressCallback = progressCallback;
+            this.chunkConsumer = chunkConsumer;
+            this.concurrency = Math.min(Math.max(1, chunks.size()), plugin.getConfigManager().getChunkConcurrency());
+            // Finished chunks waiting for an earlier one are held in memory, so don't run too far ahead
+            this.lookahead = concurrency * 2;
+        }
+
+        private CompletableFuture<Void> start() {
+            if (chunks.isEmpty()) {
+                done.complete(null);
+                return done;
+            }
+            long distinct = chunks.stream().map(chunk -> createTemplateKey(chunk, chunkSize)).distinct().count();
+            progressCallback.accept("Generating " + chunks.size() + " chunks" +
+                (plugin.getConfigManager().isChunkTemplatesEnabled() && distinct < chunks.size() ? " from " + distinct + " designs" : "") +
+                ", up to " + concurrency + " at a time...");
+            if (journal != null && !journal.getCompletedChunks().isEmpty()) {
+                progressCallback.accept("Resuming previous run: " + journal.getCompletedChunks().size() + " of " +
+                    chunks.size() + " chunks already generated");
+            }
+            launch();
+            return done;
+        }
+
+        /**
+         * Start chunks until the concurrency window or the lookahead is full
+         */
+        private void launch() {
+            List<Integer> toStart = new ArrayList<>();
+            synchronized (this) {
+                while (!done.isDone() && inFlight < concurrency && nextToStart < chunks.size() &&
+                    nextToStart < nextToEmit + lookahead) {
+                    toStart.add(nextToStart++);
+                    inFlight++;
+                }
+            }
+            for (int index : toStart) {
+                startChunk(index);
+            }
+        }
+
+        private void startChunk(int index) {
+            ChunkInfo chunk = chunks.get(index);
+            int chunkNumber = index + 1;
+
+            List<StructureData.Block> restored = journal != null ? journal.getCompletedChunks().get(index) : null;
+            if (restored != null) {
+                finishChunk(index, restored, "restored");
+                return;
+            }
+
+            generateChunkBlocks(chunk, chunkSize, requester, priority, progressCallback).handle((chunkBlocks, throwable) -> {
+                List<StructureData.Block> blocks;
+                if (throwable == null) {
+                    blocks = chunkBlocks;
+                    if (journal != null) {
+                        List<StructureData.Block> journaled = blocks;
+                        runIo(() -> journal.appendChunk(index, chunk.getChunkX(), chunk.getChunkZ(), journaled));
+                    }
+                } else {
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                    plugin.getLogger().warning("Failed to generate chunk " + chunkNumber + ": " + cause.getMessage());
+                    progressCallback.accept("Chunk " + chunkNumber + " failed, creating fallback...");
+
+                    // Create simple fallback for this chunk
+                    blocks = createFallbackChunk(chunk, chunkSize);
+                }
+
+                finishChunk(index, blocks, "generated");
+                return null;
+            });
+        }
+
+        private void finishChunk(int index, List<StructureData.Block> blocks, String outcome) {
+            ChunkInfo chunk = chunks.get(index);
+            int finished;
+            synchronized (this) {
+                ready.put(index, blocks);
+                inFlight--;
+                finished = ++generated;
+            }
+            progressCallback.accept("Chunk " + (index + 1) + " (" + chunk.getDescription() + ") " + outcome + " with " +
+                blocks.size() + " blocks [" + finished + "/" + chunks.size() + "]");
+            scheduleDrain();
+            launch();
+        }
+
+        private void scheduleDrain() {
+            synchronized (this) {
+                if (draining || done.isDone() || !ready.containsKey(nextToEmit)) {
+                    return;
+                }
+                draining = true;
+            }
             try {
-                progressCallback.accept("Planning large structure generation...");
-                
-                // Calculate structure dimensions based on target size
-                int estimatedDimensions = (int) Math.cbrt(targetSize) * 2; // Rough cube root * 2 for variety
-                int chunkSize = plugin.getConfigManager().getChunkSize();
-                int chunksPerSide = Math.max(1, estimatedDimensions / chunkSize);
-                
-                progressCallback.accept("Structure will be " + chunksPerSide + "x" + chunksPerSide + " chunks (" + (chunksPerSide * chunksPerSide) + " total chunks)");
-                
-                // Generate overall structure plan first
-                String overallPlan = generateOverallPlan(description, chunksPerSide, progressCallback);
-                
-                // Create chunks info
-                List<ChunkInfo> chunks = createChunkPlan(overallPlan, chunksPerSide, description);
-                
-                // Generate each chunk
-                StructureData combinedStructure = new StructureData();
-                combinedStructure.setName("Large " + description);
-                combinedStructure.setDescription("AI-generated large structure: " + description);
-                
-                StructureData.Size totalSize = new StructureData.Size();
-                totalSize.setWidth(chunksPerSide * chunkSize);
-                totalSize.setHeight(chunkSize);
-                totalSize.setDepth(chunksPerSide * chunkSize);
-                combinedStructure.setSize(totalSize);
-                
-                List<StructureData.Block> allBlocks = new ArrayList<>();
-                
-                int chunkCount = 0;
-                for (ChunkInfo chunk : chunks) {
-                    chunkCount++;
-                    progressCallback.accept("Generating chunk " + chunkCount + "/" + chunks.size() + " (" + chunk.getDescription() + ")");
-                    
-                    try {
-                        StructureData chunkData = generateSingleChunk(chunk, chunkSize);
-                        
-                        // Offset blocks to correct position
-                        int offsetX = chunk.getChunkX() * chunkSize;
-                        int offsetZ = chunk.getChunkZ() * chunkSize;
-                        
-                        for (StructureData.Block block : chunkData.getBlocks()) {
-                            StructureData.Block offsetBlock = new StructureData.Block();
-                            offsetBlock.setX(block.getX() + offsetX);
-                            offsetBlock.setY(block.getY());
-                            offsetBlock.setZ(block.getZ() + offsetZ);
-                            offsetBlock.setMaterial(block.getMaterial());
-                            offsetBlock.setData(block.getData());
-                            allBlocks.add(offsetBlock);
+                plugin.getExecutorManager().getStreamExecutor().execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Hand over every chunk that is next in plan order
+         */
+        private void drain() {
+            try {
+                while (true) {
+                    int index;
+                    List<StructureData.Block> blocks;
+                    synchronized (this) {
+                        blocks = ready.remove(nextToEmit);
+                        if (blocks == null) {
+                            draining = false;
+                            break;
                         }
-                        
-                        progressCallback.accept("Chunk " + chunkCount + " completed with " + chunkData.getBlocks().size() + " blocks");
-                        
-                    } catch (Exception e) {
-                        plugin.getLogger().warning("Failed to generate chunk " + chunkCount + ": " + e.getMessage());
-                        progressCallback.accept("Chunk " + chunkCount + " failed, creating fallback...");
-                        
-                        // Create simple fallback for this chunk
-                        List<StructureData.Block> fallbackBlocks = createFallbackChunk(chunk, chunkSize);
-                        allBlocks.addAll(fallbackBlocks);
+                        index = nextToEmit;
                     }
-                    
-                    // Add small delay to prevent rate limiting
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
+
+                    chunkConsumer.accept(index, blocks);
+
+                    synchronized (this) {
+                        nextToEmit++;
                     }
+                    launch();
                 }
-                
-                combinedStructure.setBlocks(allBlocks);
-                
-                progressCallback.accept("Large structure generation completed! Total blocks: " + allBlocks.size());
-                plugin.getLogger().info("Generated large structure with " + allBlocks.size() + " blocks across " + chunks.size() + " chunks");
-                
-                return combinedStructure;
-                
-            } catch (Exception e) {
-                plugin.getLogger().severe("Error generating large structure: " + e.getMessage());
-                throw new RuntimeException("Failed to generate large structure: " + e.getMessage());
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    draining = false;
+                }
+                done.completeExceptionally(e);
+                return;
             }
+
+            synchronized (this) {
+                if (nextToEmit == chunks.size()) {
+                    done.complete(null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generate a large structure using chunked approach
+     */
+    public CompletableFuture<StructureData> generateLargeStructure(String description, int targetSize, UUID requester,
+                                                                  RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        return planLargeStructure(description, targetSize, requester, priority, progressCallback)
+            .thenCompose(plan -> {
+                // Chunks arrive in plan order, so the merge does not depend on which chunk finished first
+                BlockMerger merger = new BlockMerger(true, plan.chunks.size() * plan.chunkSize * plan.chunkSize);
+                return new ChunkPipeline(plan, requester, priority, progressCallback,
+                    (index, blocks) -> merger.addAll(blocks)).start()
+                    .thenApply(ignored -> {
+                        StructureData combinedStructure = createCombinedStructure(description, plan);
+                        combinedStructure.setBlocks(merger.getBlocks());
+                        
+                        progressCallback.accept("Large structure generation completed! Total blocks: " + merger.getBlocks().size());
+                        logTemplateStats();
+                        deleteJournal(plan);
+                        plugin.getLogger().info("Generated large structure with " + merger.getBlocks().size() + " blocks across " +
+                            plan.chunks.size() + " chunks (" + merger.getDuplicateCount() + " overlapping blocks merged)");
+                        return combinedStructure;
+                    });
+            })
+            .exceptionally(throwable -> {
+                throw wrapFailure(throwable);
+            });
+    }
+    
+    /**
+     * Generate a large structure, pushing each chunk into the block stream as soon as it and every
+     * earlier chunk are ready so placement overlaps with generation. The combined block list is never
+     * built, only the chunks next to one still to come are kept for merging; the returned structure
+     * only describes the result and has no blocks.
+     */
+    public CompletableFuture<StructureData> generateLargeStructureStreaming(String description, int targetSize, UUID requester,
+                                                                           RequestScheduler.Priority priority, BlockStream blockStream,
+                                                                           Consumer<String> progressCallback) {
+        AtomicInteger pushedBlocks = new AtomicInteger();
+        
+        return planLargeStructure(description, targetSize, requester, priority, progressCallback)
+            .thenCompose(plan -> {
+                // Blocks already pushed can't be taken back, so seams are pushed once every chunk that reaches them is merged
+                ChunkStreamMerger merger = new ChunkStreamMerger(plan.chunkSize, plan.chunksPerSide);
+                return new ChunkPipeline(plan, requester, priority, progressCallback,
+                    (index, blocks) -> {
+                        ChunkInfo chunk = plan.chunks.get(index);
+                        blockStream.markSection("chunk " + (index + 1) + "/" + plan.chunks.size() + " (" + chunk.getDescription() + ")");
+                        merger.addChunk(chunk.getChunkX(), chunk.getChunkZ(), blocks, block -> {
+                            blockStream.push(block);
+                            pushedBlocks.incrementAndGet();
+                        });
+                    }).start()
+                    .thenApply(ignored -> {
+                        StructureData combinedStructure = createCombinedStructure(description, plan);
+                        progressCallback.accept("Large structure generation completed! Total blocks: " + pushedBlocks.get());
+                        logTemplateStats();
+                        deleteJournal(plan);
+                        plugin.getLogger().info("Streamed large structure with " + pushedBlocks.get() + " blocks across " +
+                            plan.chunks.size() + " chunks (" + merger.getDuplicateCount() + " overlapping blocks merged" +
+                            (merger.getSkippedCount() > 0 ? ", " + merger.getSkippedCount() + " stray blocks skipped" : "") + ")");
+                        return combinedStructure;
+                    });
+            })
+            .whenComplete((result, throwable) -> {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                if (cause != null && !(cause instanceof CancellationException)) {
+                    blockStream.fail(cause);
+                }
+                blockStream.complete();
+            })
+            .exceptionally(throwable -> {
+                throw wrapFailure(throwable);
+            });
+    }
+    
+    /**
+     * Size the chunk grid and ask the AI what goes in each chunk
+     */
+    private CompletableFuture<LargeStructurePlan> planLargeStructure(String description, int targetSize, UUID requester,
+                                                                     RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        progressCallback.accept("Planning large structure generation...");
+        
+        if (!plugin.getConfigManager().isChunkJournalEnabled()) {
+            int chunkSize = chunkSizeTuner.getRecommendedChunkSize();
+            int chunksPerSide = calculateChunksPerSide(targetSize, chunkSize, progressCallback);
+            return generateOverallPlan(description, chunksPerSide, requester, priority, progressCallback)
+                .thenApply(overallPlan -> new LargeStructurePlan(
+                    createChunkPlan(overallPlan, chunksPerSide, description), chunkSize, chunksPerSide, null));
+        }
+        
+        return plugin.getExecutorManager().supplyIo(() -> ChunkJournal.open(plugin, gson, requester, description, targetSize),
+            progressCallback).thenCompose(journal -> {
+            // A journal left by an interrupted run already holds the plan and its chunk layout
+            if (journal.hasPlan()) {
+                progressCallback.accept("Found an interrupted run of this structure, reusing its plan");
+                return CompletableFuture.completedFuture(new LargeStructurePlan(
+                    createChunkPlan(journal.getPlan(), journal.getChunksPerSide(), description),
+                    journal.getChunkSize(), journal.getChunksPerSide(), journal));
+            }
+            
+            int chunkSize = chunkSizeTuner.getRecommendedChunkSize();
+            int chunksPerSide = calculateChunksPerSide(targetSize, chunkSize, progressCallback);
+            
+            // Generate overall structure plan first
+            return generateOverallPlan(description, chunksPerSide, requester, priority, progressCallback)
+                .thenApplyAsync(overallPlan -> {
+                    journal.writePlan(overallPlan, chunkSize, chunksPerSide);
+                    return new LargeStructurePlan(createChunkPlan(overallPlan, chunksPerSide, description),
+                        chunkSize, chunksPerSide, journal);
+                }, plugin.getExecutorManager().getIoExecutor());
         });
     }
+    
+    private int calculateChunksPerSide(int targetSize, int chunkSize, Consumer<String> progressCallback) {
+        // Calculate structure dimensions based on target size
+        int estimatedDimensions = (int) Math.cbrt(targetSize) * 2; // Rough cube root * 2 for variety
+        int chunksPerSide = Math.max(1, estimatedDimensions / chunkSize);
+        
+        progressCallback.accept("Structure will be " + chunksPerSide + "x" + chunksPerSide + " chunks of " + chunkSize +
+            " blocks (" + (chunksPerSide * chunksPerSide) + " total chunks)");
+        return chunksPerSide;
+    }
+    
+    /**
+     * Drop the checkpoint of a job that finished
+     */
+    private void deleteJournal(LargeStructurePlan plan) {
+        if (plan.journal != null) {
+            runIo(plan.journal::delete);
+        }
+    }
+    
+    private void runIo(Runnable task) {
+        try {
+            plugin.getExecutorManager().getIoExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            // Plugin is shutting down, the journal is written again on the next run
+            plugin.getLogger().fine("Skipped chunk journal update during shutdown");
+        }
+    }
+    
+    private StructureData createCombinedStructure(String description, LargeStructurePlan plan) {
+        StructureData combinedStructure = new StructureData();
+        combinedStructure.setName("Large " + description);
+        combinedStructure.setDescription("AI-generated large structure: " + description);
+        
+        StructureData.Size totalSize = new StructureData.Size();
+        totalSize.setWidth(plan.chunksPerSide * plan.chunkSize);
+        totalSize.setHeight(plan.chunkSize);
+        totalSize.setDepth(plan.chunksPerSide * plan.chunkSize);
+        combinedStructure.setSize(totalSize);
+        return combinedStructure;
+    }
+    
+    private RuntimeException wrapFailure(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof CancellationException) {
+            return (CancellationException) cause;
+        }
+        plugin.getLogger().severe("Error generating large structure: " + cause.getMessage());
+        return new RuntimeException("Failed to generate large structure: " + cause.getMessage(), cause);
+    }
+    
+    /**
+     * Move freshly parsed blocks by an offset in place, they are not shared with anything else
+     */
+    private List<StructureData.Block> moveBlocks(List<StructureData.Block> blocks, int offsetX, int offsetZ) {
+        BlockBuffer buffer = BlockBuffer.unwrap(blocks);
+        if (buffer != null) {
+            buffer.translate(offsetX, 0, offsetZ);
+            return blocks;
+        }
+        for (StructureData.Block block : blocks) {
+            block.setX(block.getX() + offsetX);
+            block.setZ(block.getZ() + offsetZ);
+        }
+        return blocks;
+    }
       /**
      * Generate overall structure plan
      */
-    private String generateOverallPlan(String description, int chunksPerSide, Consumer<String> progressCallback) throws IOException {
+    private CompletableFuture<String> generateOverallPlan(String description, int chunksPerSide, UUID requester,
+                                                          RequestScheduler.Priority priority, Consumer<String> progressCallback) {
         progressCallback.accept("Creating overall structure plan...");
         
         String planPrompt = "Create a brief plan for a Minecraft structure: " + description + "\n\n" +
@@ -149,7 +450,7 @@ public class ChunkedGenerationManager {
                 "NO comments, NO extra text, just the plan.\n\n" +
                 "Example: entrance, walls, courtyard, tower, etc.";
         
-        return callGeminiAPI(planPrompt);
+        return requestContent(planPrompt, requester, priority, progressCallback);
     }
     
     /**
@@ -194,7 +495,7 @@ public class ChunkedGenerationManager {
                 String contextualDesc = baseDescription + " - " + chunkDesc + 
                         " (chunk " + x + "," + z + " of " + chunksPerSide + "x" + chunksPerSide + " structure)";
                 
-                chunks.add(new ChunkInfo(x, z, contextualDesc, overallPlan));
+                chunks.add(new ChunkInfo(x, z, contextualDesc, overallPlan, baseDescription + " - " + chunkDesc));
                 descIndex++;
             }
         }
@@ -203,33 +504,188 @@ public class ChunkedGenerationManager {
     }
     
     /**
-     * Generate a single chunk
-     */    private StructureData generateSingleChunk(ChunkInfo chunk, int chunkSize) throws IOException {
-        String chunkPrompt = createChunkPrompt(chunk, chunkSize);
-        String response = callGeminiAPI(chunkPrompt);
-        return responseProcessor.processResponse(response, chunk.getDescription());
+     * Get the blocks of a chunk at its position in the structure, generating each distinct chunk description only once.
+     * Chunks sharing a template are varied with a rotation or mirror picked from their position.
+     */
+    private CompletableFuture<List<StructureData.Block>> generateChunkBlocks(ChunkInfo chunk, int chunkSize, UUID requester,
+                                                                             RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        int offsetX = chunk.getChunkX() * chunkSize;
+        int offsetZ = chunk.getChunkZ() * chunkSize;
+        if (!plugin.getConfigManager().isChunkTemplatesEnabled()) {
+            return generateSingleChunk(chunk, chunkSize, requester, priority, progressCallback)
+                .thenApply(chunkData -> moveBlocks(chunkData.getBlocks(), offsetX, offsetZ));
+        }
+        
+        String key = createTemplateKey(chunk, chunkSize);
+        CompletableFuture<List<StructureData.Block>> template;
+        boolean owner = false;
+        synchronized (chunkTemplates) {
+            template = chunkTemplates.get(key);
+            if (template == null) {
+                template = new CompletableFuture<>();
+                chunkTemplates.put(key, template);
+                owner = true;
+                trimTemplates();
+            }
+        }
+        templateRequests.incrementAndGet();
+        
+        if (owner) {
+            CompletableFuture<List<StructureData.Block>> created = template;
+            generateSingleChunk(chunk, chunkSize, requester, priority, progressCallback).whenComplete((chunkData, throwable) -> {
+                if (throwable != null || chunkData.isFallback()) {
+                    // Never keep a failed or generic fallback design, let the next structure try this design again
+                    synchronized (chunkTemplates) {
+                        chunkTemplates.remove(key, created);
+                    }
+                    created.completeExceptionally(throwable != null ? throwable :
+                        new RuntimeException("No usable design for " + chunk.getTemplateDescription()));
+                } else {
+                    created.complete(BlockBuffer.copyOf(chunkData.getBlocks()).asList());
+                }
+            });
+        } else {
+            templateHits.incrementAndGet();
+            progressCallback.accept("Reusing design for chunk (" + chunk.getChunkX() + "," + chunk.getChunkZ() + "): " +
+                chunk.getTemplateDescription());
+        }
+        
+        // Templates are shared, so this is the one copy each placed chunk needs
+        ChunkTransform transform = new ChunkTransform(plugin.getConfigManager().isChunkTemplateVariationEnabled() ?
+            31 * chunk.getChunkX() + 17 * chunk.getChunkZ() : 0);
+        return template.thenApply(blocks -> transform.apply(blocks, chunkSize, offsetX, offsetZ));
+    }
+    
+    private String createTemplateKey(ChunkInfo chunk, int chunkSize) {
+        return chunk.getTemplateDescription().trim().toLowerCase(Locale.ROOT) + "|" + chunkSize;
+    }
+    
+    /**
+     * Drop least recently used templates, caller holds the lock
+     */
+    private void trimTemplates() {
+        int maxEntries = plugin.getConfigManager().getChunkTemplateCacheSize();
+        Iterator<Map.Entry<String, CompletableFuture<List<StructureData.Block>>>> iterator = chunkTemplates.entrySet().iterator();
+        while (chunkTemplates.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+    
+    private void logTemplateStats() {
+        if (templateRequests.get() > 0) {
+            plugin.getLogger().info("Chunk templates: " + templateHits.get() + " of " + templateRequests.get() +
+                " chunks reused an existing design");
+        }
+    }
+    
+    /**
+     * Generate a single chunk, parsing the response on the CPU pool
+     */
+    private CompletableFuture<StructureData> generateSingleChunk(ChunkInfo chunk, int chunkSize, UUID requester,
+                                                                 RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        return generateRegion(chunk, chunkSize, chunkSize, chunkSize, requester, priority, progressCallback);
+    }
+    
+    /**
+     * Generate a region of a chunk. A response that ran out of output tokens is not repaired
+     * but asked for again as four smaller regions, so no part of the chunk is silently cut off.
+     */
+    private CompletableFuture<StructureData> generateRegion(ChunkInfo chunk, int width, int depth, int height, UUID requester,
+                                                            RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        String chunkPrompt = createChunkPrompt(chunk, width, depth, height);
+        return retryScheduler.execute(() -> requestScheduler.submit(requester, priority, chunkPrompt,
+                () -> transport.generateContentDetailedAsync(chunkPrompt), progressCallback), progressCallback)
+            .thenCompose(response -> {
+                if (response.isTruncated() && chunkSizeTuner.canSplit(Math.min(width, depth))) {
+                    chunkSizeTuner.record(width, depth, response, 0);
+                    chunkSizeTuner.recordSplit();
+                    progressCallback.accept("Chunk (" + chunk.getChunkX() + "," + chunk.getChunkZ() +
+                        ") response was cut off, splitting it into four smaller requests...");
+                    return generateQuarters(chunk, width, depth, height, requester, priority, progressCallback);
+                }
+                
+                return plugin.getExecutorManager().supplyCpu(() -> {
+                    StructureData chunkData = responseProcessor.processResponse(response.getText(), chunk.getDescription());
+                    if (chunkData.isFallback()) {
+                        // A generic fallback is no answer for this chunk, fail it so it is not journaled or shared
+                        chunkSizeTuner.record(width, depth, response, 0);
+                        throw new RuntimeException("No usable structure in the response for chunk (" +
+                            chunk.getChunkX() + "," + chunk.getChunkZ() + ")");
+                    }
+                    chunkSizeTuner.record(width, depth, response, chunkData.getBlocks() != null ? chunkData.getBlocks().size() : 0);
+                    return chunkData;
+                }, progressCallback);
+            });
+    }
+    
+    /**
+     * Generate the four quarters of a region and join them in region-local coordinates.
+     * For odd sizes the far quarters are one block larger, so together they cover the whole region.
+     */
+    private CompletableFuture<StructureData> generateQuarters(ChunkInfo chunk, int width, int depth, int height, UUID requester,
+                                                              RequestScheduler.Priority priority, Consumer<String> progressCallback) {
+        int halfX = width / 2;
+        int halfZ = depth / 2;
+        String[] names = {"north-west", "south-west", "north-east", "south-east"};
+        List<CompletableFuture<List<StructureData.Block>>> quarters = new ArrayList<>();
+        
+        for (int i = 0; i < 4; i++) {
+            boolean east = i / 2 == 1;
+            boolean south = i % 2 == 1;
+            int offsetX = east ? halfX : 0;
+            int offsetZ = south ? halfZ : 0;
+            int quarterWidth = east ? width - halfX : halfX;
+            int quarterDepth = south ? depth - halfZ : halfZ;
+            ChunkInfo quarter = new ChunkInfo(chunk.getChunkX(), chunk.getChunkZ(),
+                chunk.getDescription() + " - " + names[i] + " quarter", chunk.getContext(),
+                chunk.getTemplateDescription() + " - " + names[i] + " quarter");
+            quarters.add(generateRegion(quarter, quarterWidth, quarterDepth, height, requester, priority, progressCallback)
+                .thenApply(quarterData -> moveBlocks(quarterData.getBlocks(), offsetX, offsetZ)));
+        }
+        
+        return CompletableFuture.allOf(quarters.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            StructureData joined = new StructureData();
+            joined.setName(chunk.getDescription());
+            BlockBuffer blocks = new BlockBuffer();
+            for (CompletableFuture<List<StructureData.Block>> quarter : quarters) {
+                blocks.addAll(quarter.join());
+            }
+            joined.setBlocks(blocks.asList());
+            return joined;
+        });
+    }
+    
+    /**
+     * Send a prompt through the rate limiter, retry scheduler and circuit breaker
+     */
+    private CompletableFuture<String> requestContent(String prompt, UUID requester, RequestScheduler.Priority priority,
+                                                     Consumer<String> progressCallback) {
+        // The detailed response carries the token usage the rate limiter settles its estimate with
+        return retryScheduler.execute(() -> requestScheduler.submit(requester, priority, prompt,
+            () -> transport.generateContentDetailedAsync(prompt), progressCallback).thenApply(GeminiResponse::getText), progressCallback);
     }
       /**
      * Create prompt for individual chunk
      */
-    private String createChunkPrompt(ChunkInfo chunk, int chunkSize) {
+    private String createChunkPrompt(ChunkInfo chunk, int width, int depth, int height) {
         return "Generate a Minecraft structure chunk for: " + chunk.getDescription() + "\n\n" +
                 "CRITICAL REQUIREMENTS:\n" +
-                "- Chunk size: " + chunkSize + "x" + chunkSize + "x" + chunkSize + " blocks\n" +
-                "- Coordinates: X[0-" + (chunkSize-1) + "], Y[0-" + (chunkSize-1) + "], Z[0-" + (chunkSize-1) + "]\n" +
+                "- Chunk size: " + width + "x" + height + "x" + depth + " blocks\n" +
+                "- Coordinates: X[0-" + (width-1) + "], Y[0-" + (height-1) + "], Z[0-" + (depth-1) + "]\n" +
                 "- This is chunk (" + chunk.getChunkX() + "," + chunk.getChunkZ() + ") in a larger structure\n" +
                 "- Return ONLY valid JSON - NO comments, NO explanations, NO markdown\n" +
                 "- Do NOT use // comments or any other text outside JSON\n" +
-                "- Keep response under 3000 characters\n" +
-                "- Maximum " + (chunkSize * chunkSize * chunkSize / 4) + " blocks\n\n" +
+                "- Maximum " + (width * depth * height / 4) + " blocks after expanding primitives\n\n" +
                 "CONTEXT:\n" + chunk.getContext() + "\n\n" +
+                PrimitiveExpander.FORMAT_INSTRUCTIONS + "\n" +
                 "Return this exact JSON format:\n" +
                 "{\n" +
                 "  \"name\": \"structure name\",\n" +
                 "  \"description\": \"description\",\n" +
-                "  \"size\": {\"width\": " + chunkSize + ", \"height\": " + chunkSize + ", \"depth\": " + chunkSize + "},\n" +
-                "  \"blocks\": [\n" +
-                "    {\"x\": 0, \"y\": 0, \"z\": 0, \"material\": \"STONE\", \"data\": \"\"}\n" +
+                "  \"size\": {\"width\": " + width + ", \"height\": " + height + ", \"depth\": " + depth + "},\n" +
+                "  \"primitives\": [\n" +
+                "    {\"type\": \"fill\", \"from\": [0,0,0], \"to\": [" + (width-1) + ",0," + (depth-1) + "], \"material\": \"STONE\"}\n" +
                 "  ]\n" +
                 "}\n\n" +                "Use these materials: STONE, COBBLESTONE, STONE_BRICKS, MOSSY_STONE_BRICKS, CRACKED_STONE_BRICKS, " +
                 "CHISELED_STONE_BRICKS, SMOOTH_STONE, GRANITE, POLISHED_GRANITE, DIORITE, POLISHED_DIORITE, " +
@@ -321,59 +777,6 @@ public class ChunkedGenerationManager {
         return blocks;
     }
     
-    /**
-     * Call Gemini API
-     */
-    private String callGeminiAPI(String prompt) throws IOException {
-        String apiKey = plugin.getConfigManager().getGeminiApiKey();
-        String model = plugin.getConfigManager().getGeminiModel();
-        String url = "https://generativelanguage.googleapis.com/v1beta/models/" + model + ":generateContent?key=" + apiKey;
-        
-        String jsonBody = "{\n" +
-                "  \"contents\": [{\n" +
-                "    \"parts\": [{\n" +
-                "      \"text\": \"" + prompt.replace("\"", "\\\"").replace("\n", "\\n") + "\"\n" +
-                "    }]\n" +
-                "  }],\n" +
-                "  \"generationConfig\": {\n" +
-                "    \"temperature\": " + plugin.getConfigManager().getTemperature() + ",\n" +
-                "    \"maxOutputTokens\": " + plugin.getConfigManager().getMaxTokens() + "\n" +
-                "  }\n" +
-                "}";
-        
-        RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json; charset=utf-8"));
-        Request request = new Request.Builder()
-                .url(url)
-                .post(body)
-                .addHeader("Content-Type", "application/json")
-                .build();
-        
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("API call failed: " + response.code() + " " + response.message());
-            }
-            
-            String responseBody = response.body().string();
-            
-            // Parse Gemini response format            @SuppressWarnings("unchecked")
-            Map<String, Object> responseMap = gson.fromJson(responseBody, Map.class);
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) responseMap.get("candidates");
-            
-            if (candidates != null && !candidates.isEmpty()) {
-                Map<String, Object> firstCandidate = candidates.get(0);
-                Map<String, Object> content = (Map<String, Object>) firstCandidate.get("content");
-                List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-                
-                if (parts != null && !parts.isEmpty()) {
-                    return (String) parts.get(0).get("text");
-                }
-            }
-            
-            throw new IOException("No valid response content found");
-        }
-    }
-    
     /**
      * Parse AI response into StructureData
      */
@@ -0,0 +1,134 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+
+/**
+ * Circuit breaker for Gemini calls. Opens when the failure rate over the recent call window is too high,
+ * so requests fail fast instead of waiting on a degraded API, then lets a single probe through after a cool-down.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final AIStructureBuilder plugin;
+    private boolean[] outcomes;
+    private int outcomeIndex = 0;
+    private int recordedCalls = 0;
+    private int failedCalls = 0;
+
+    private State state = State.CLOSED;
+    private long openUntil = 0;
+    private boolean probeInFlight = false;
+
+    public CircuitBreaker(AIStructureBuilder plugin) {
+        this.plugin = plugin;
+        this.outcomes = new boolean[plugin.getConfigManager().getCircuitWindowSize()];
+    }
+
+    /**
+     * Check if a request may be sent now
+     */
+    public synchronized boolean allowRequest() {
+        if (!plugin.getConfigManager().isCircuitBreakerEnabled()) {
+            return true;
+        }
+
+        switch (state) {
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                plugin.getLogger().info("Gemini circuit breaker half-open, sending a probe request");
+                return true;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Record a successful call
+     */
+    public synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            plugin.getLogger().info("Gemini circuit breaker closed, API is responding again");
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * Record a failed call
+     */
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+
+        int minimumCalls = Math.min(outcomes.length, plugin.getConfigManager().getCircuitMinimumCalls());
+        if (state == State.CLOSED && recordedCalls >= minimumCalls &&
+            failedCalls * 100 >= plugin.getConfigManager().getCircuitFailureRateThreshold() * recordedCalls) {
+            open();
+        }
+    }
+
+    /**
+     * Get current state
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Get seconds until the breaker lets a probe request through
+     */
+    public synchronized long getSecondsUntilRetry() {
+        return state == State.OPEN ? Math.max(0, (openUntil - System.currentTimeMillis() + 999) / 1000) : 0;
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == outcomes.length) {
+            // Overwrite the oldest outcome in the ring buffer
+            if (outcomes[outcomeIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[outcomeIndex] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        probeInFlight = false;
+        openUntil = System.currentTimeMillis() + plugin.getConfigManager().getCircuitOpenSeconds() * 1000L;
+        plugin.getLogger().warning("Gemini circuit breaker opened after " + failedCalls + "/" + recordedCalls +
+            " failed calls, failing fast for " + plugin.getConfigManager().getCircuitOpenSeconds() + " seconds");
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        probeInFlight = false;
+        outcomes = new boolean[plugin.getConfigManager().getCircuitWindowSize()];
+        outcomeIndex = 0;
+        recordedCalls = 0;
+        failedCalls = 0;
+    }
+}
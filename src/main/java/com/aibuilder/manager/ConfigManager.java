@@ -3,9 +3,12 @@ package com.aibuilder.manager;
 import com.aibuilder.AIStructureBuilder;
 import lombok.Getter;
 import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Manages plugin configuration
@@ -58,6 +61,14 @@ public class ConfigManager {
         return config.getString("gemini.model", "gemini-2.0-flash");
     }
 
+    /**
+     * Get Gemini API base URL that model names are appended to, always ending with a slash
+     */
+    public String getGeminiBaseUrl() {
+        String baseUrl = config.getString("gemini.base-url", "https://generativelanguage.googleapis.com/v1beta/models/");
+        return baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    }
+
     /**
      * Get maximum tokens
      */
@@ -72,6 +83,20 @@ public class ConfigManager {
         return config.getDouble("gemini.temperature", 0.7);
     }
 
+    /**
+     * Check if streaming generation is enabled
+     */
+    public boolean isStreamingEnabled() {
+        return config.getBoolean("gemini.streaming.enabled", true);
+    }
+
+    /**
+     * Get maximum number of streamed blocks waiting to be placed
+     */
+    public int getStreamQueueCapacity() {
+        return config.getInt("gemini.streaming.queue-capacity", 2000);
+    }
+
     /**
      * Get maximum structure size
      */
@@ -90,7 +115,7 @@ public class ConfigManager {
      * Check if confirmation is required
      */
     public boolean requireConfirmation() {
-        return config.getBoolean("building.require-confirmation", true);
+        return config.getBoolean("building.require-confirmation", false);
     }
 
     /**
@@ -114,6 +139,87 @@ public class ConfigManager {
         return config.getInt("performance.build-delay", 2);
     }
 
+    /**
+     * Check if blocks are placed within a time budget per tick instead of a fixed count
+     */
+    public boolean isAdaptivePlacementEnabled() {
+        return config.getBoolean("performance.adaptive-placement.enabled", true);
+    }
+
+    /**
+     * Get share of a tick in percent that builds may spend placing blocks
+     */
+    public int getTickBudgetPercent() {
+        return Math.max(1, Math.min(80, config.getInt("performance.adaptive-placement.tick-budget-percent", 10)));
+    }
+
+    /**
+     * Get placement time in milliseconds builds get per tick even while the server lags
+     */
+    public double getMinPlacementBudgetMillis() {
+        return Math.max(0.05, config.getDouble("performance.adaptive-placement.min-budget-ms", 0.5));
+    }
+
+    /**
+     * Get TPS below which placement backs off
+     */
+    public double getAdaptivePlacementMinTps() {
+        return config.getDouble("performance.adaptive-placement.min-tps", 18.0);
+    }
+
+    /**
+     * Check if blocks are placed by support order, with physics only for blocks that need neighbours
+     */
+    public boolean isOrderedPlacementEnabled() {
+        return config.getBoolean("performance.ordered-placement", true);
+    }
+
+    /**
+     * Check if placements that would not change the world are dropped before building
+     */
+    public boolean isSkipUnchangedBlocksEnabled() {
+        return config.getBoolean("performance.skip-unchanged-blocks", true);
+    }
+
+    /**
+     * Get number of upcoming chunks a build keeps loaded ahead of placement
+     */
+    public int getChunkPreloadAhead() {
+        return Math.max(0, config.getInt("performance.chunk-preload-ahead", 4));
+    }
+
+    /**
+     * Get blocks a build places per scheduler turn when no other weight applies
+     */
+    public int getDefaultBuildWeight() {
+        return Math.max(1, config.getInt("performance.build-scheduler.default-weight", 1));
+    }
+
+    /**
+     * Get build weights by permission node
+     */
+    public Map<String, Integer> getPermissionBuildWeights() {
+        return getWeights("performance.build-scheduler.permission-weights", false);
+    }
+
+    /**
+     * Get build weights by lower-case player name or UUID
+     */
+    public Map<String, Integer> getPlayerBuildWeights() {
+        return getWeights("performance.build-scheduler.player-weights", true);
+    }
+
+    private Map<String, Integer> getWeights(String path, boolean lowerCaseKeys) {
+        Map<String, Integer> weights = new HashMap<>();
+        ConfigurationSection section = config.getConfigurationSection(path);
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                weights.put(lowerCaseKeys ? key.toLowerCase() : key, Math.max(1, Math.min(100, section.getInt(key, 1))));
+            }
+        }
+        return weights;
+    }
+
     /**
      * Check if async building is enabled
      */
@@ -207,6 +313,76 @@ public class ConfigManager {
         return config.getInt("building.chunk-size", 32);
     }
 
+    /**
+     * Get number of chunks generated at the same time
+     */
+    public int getChunkConcurrency() {
+        return Math.max(1, config.getInt("building.chunk-concurrency", 4));
+    }
+
+    /**
+     * Check if chunk size adapts to observed token usage and truncation
+     */
+    public boolean isAdaptiveChunkSizeEnabled() {
+        return config.getBoolean("building.adaptive-chunk-size.enabled", true);
+    }
+
+    /**
+     * Get share of max-tokens a chunk response should use
+     */
+    public double getAdaptiveChunkTargetRatio() {
+        return Math.max(0.1, Math.min(1.0, config.getDouble("building.adaptive-chunk-size.target-output-ratio", 0.6)));
+    }
+
+    /**
+     * Get smallest chunk or chunk region width
+     */
+    public int getAdaptiveChunkMinSize() {
+        return Math.max(4, config.getInt("building.adaptive-chunk-size.min-size", 8));
+    }
+
+    /**
+     * Get largest chunk width
+     */
+    public int getAdaptiveChunkMaxSize() {
+        return config.getInt("building.adaptive-chunk-size.max-size", 64);
+    }
+
+    /**
+     * Check if chunks with the same description share one generated design
+     */
+    public boolean isChunkTemplatesEnabled() {
+        return config.getBoolean("building.chunk-templates.enabled", true);
+    }
+
+    /**
+     * Check if reused chunk designs are rotated or mirrored for variety
+     */
+    public boolean isChunkTemplateVariationEnabled() {
+        return config.getBoolean("building.chunk-templates.vary", true);
+    }
+
+    /**
+     * Get maximum number of chunk designs kept in memory
+     */
+    public int getChunkTemplateCacheSize() {
+        return Math.max(1, config.getInt("building.chunk-templates.max-entries", 128));
+    }
+
+    /**
+     * Check if chunked generation keeps an on-disk checkpoint so interrupted runs can resume
+     */
+    public boolean isChunkJournalEnabled() {
+        return config.getBoolean("building.chunk-journal.enabled", true);
+    }
+
+    /**
+     * Get hours after which an abandoned chunk journal is deleted
+     */
+    public int getChunkJournalMaxAgeHours() {
+        return Math.max(1, config.getInt("building.chunk-journal.max-age-hours", 24));
+    }
+
     /**
      * Get maximum chunks per structure
      */
@@ -234,4 +410,207 @@ public class ConfigManager {
     public int getWriteTimeout() {
         return config.getInt("gemini.timeout.write", 30);
     }
+
+    /**
+     * Get maximum retry attempts for AI requests
+     */
+    public int getRetryMaxAttempts() {
+        return Math.max(1, config.getInt("gemini.retry.max-attempts", 3));
+    }
+
+    /**
+     * Get base retry delay in seconds
+     */
+    public int getRetryDelaySeconds() {
+        return Math.max(0, config.getInt("gemini.retry.delay-seconds", 2));
+    }
+
+    /**
+     * Get upper bound for a single retry delay in seconds
+     */
+    public int getRetryMaxDelaySeconds() {
+        return Math.max(1, config.getInt("gemini.retry.max-delay-seconds", 20));
+    }
+
+    /**
+     * Get retry budget earned per request (0.2 allows one retry per five requests)
+     */
+    public double getRetryBudgetRatio() {
+        return Math.max(0.0, config.getDouble("gemini.retry.budget-ratio", 0.2));
+    }
+
+    /**
+     * Get number of retries that can be saved up and spent in a burst
+     */
+    public int getRetryBudgetBurst() {
+        return Math.max(1, config.getInt("gemini.retry.budget-burst", 5));
+    }
+
+    /**
+     * Check if the Gemini circuit breaker is enabled
+     */
+    public boolean isCircuitBreakerEnabled() {
+        return config.getBoolean("gemini.circuit-breaker.enabled", true);
+    }
+
+    /**
+     * Get failure rate percentage that opens the circuit breaker
+     */
+    public int getCircuitFailureRateThreshold() {
+        return Math.max(1, Math.min(100, config.getInt("gemini.circuit-breaker.failure-rate-threshold", 50)));
+    }
+
+    /**
+     * Get number of recent calls the failure rate is measured over
+     */
+    public int getCircuitWindowSize() {
+        return Math.max(1, config.getInt("gemini.circuit-breaker.window-size", 20));
+    }
+
+    /**
+     * Get minimum number of calls before the circuit breaker can open
+     */
+    public int getCircuitMinimumCalls() {
+        return Math.max(1, config.getInt("gemini.circuit-breaker.minimum-calls", 10));
+    }
+
+    /**
+     * Get how long the circuit breaker stays open in seconds
+     */
+    public int getCircuitOpenSeconds() {
+        return Math.max(1, config.getInt("gemini.circuit-breaker.open-seconds", 30));
+    }
+
+    /**
+     * Check if Gemini requests are rate limited
+     */
+    public boolean isRateLimitEnabled() {
+        return config.getBoolean("gemini.rate-limit.enabled", true);
+    }
+
+    /**
+     * Get Gemini request quota per minute
+     */
+    public int getRateLimitRequestsPerMinute() {
+        return Math.max(1, config.getInt("gemini.rate-limit.requests-per-minute", 60));
+    }
+
+    /**
+     * Get Gemini token quota per minute
+     */
+    public int getRateLimitTokensPerMinute() {
+        return Math.max(1, config.getInt("gemini.rate-limit.tokens-per-minute", 1000000));
+    }
+
+    /**
+     * Get maximum number of requests waiting for rate limit capacity
+     */
+    public int getRateLimitMaxQueued() {
+        return Math.max(1, config.getInt("gemini.rate-limit.max-queued", 256));
+    }
+
+    /**
+     * Get maximum concurrent HTTP requests to Gemini
+     */
+    public int getHttpMaxRequests() {
+        return Math.max(1, config.getInt("gemini.http.max-requests", 16));
+    }
+
+    /**
+     * Get maximum concurrent HTTP requests per host
+     */
+    public int getHttpMaxRequestsPerHost() {
+        return Math.max(1, config.getInt("gemini.http.max-requests-per-host", 8));
+    }
+
+    /**
+     * Get maximum idle pooled connections
+     */
+    public int getHttpMaxIdleConnections() {
+        return Math.max(1, config.getInt("gemini.http.max-idle-connections", 8));
+    }
+
+    /**
+     * Get keep-alive duration for idle pooled connections in seconds
+     */
+    public int getHttpKeepAliveSeconds() {
+        return Math.max(1, config.getInt("gemini.http.keep-alive-seconds", 300));
+    }
+
+    /**
+     * Check if the structure cache is enabled
+     */
+    public boolean isCacheEnabled() {
+        return config.getBoolean("cache.enabled", true);
+    }
+
+    /**
+     * Get maximum total blocks held by the in-memory cache
+     */
+    public long getCacheMemoryMaxBlocks() {
+        return Math.max(0, config.getLong("cache.memory-max-blocks", 200000));
+    }
+
+    /**
+     * Get maximum size of the on-disk cache in megabytes
+     */
+    public int getCacheDiskMaxMegabytes() {
+        return Math.max(0, config.getInt("cache.disk-max-mb", 64));
+    }
+
+    /**
+     * Get cache entry time-to-live in hours (0 = never expire)
+     */
+    public int getCacheTtlHours() {
+        return Math.max(0, config.getInt("cache.ttl-hours", 168));
+    }
+
+    /**
+     * Get number of threads for blocking network and disk work
+     */
+    public int getIoThreads() {
+        return Math.max(1, config.getInt("executors.io-threads", 32));
+    }
+
+    /**
+     * Get maximum number of queued network and disk tasks
+     */
+    public int getIoQueueLimit() {
+        return Math.max(1, config.getInt("executors.io-queue-limit", 64));
+    }
+
+    /**
+     * Check if virtual threads should be used for I/O on Java 21+
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return config.getBoolean("executors.virtual-threads", true);
+    }
+
+    /**
+     * Get maximum number of network and disk tasks running at once on virtual threads
+     */
+    public int getVirtualThreadLimit() {
+        return Math.max(1, config.getInt("executors.virtual-thread-limit", 1024));
+    }
+
+    /**
+     * Get maximum number of platform threads for long-lived stream consumers when virtual threads are unavailable
+     */
+    public int getStreamThreads() {
+        return Math.max(1, config.getInt("executors.stream-threads", 64));
+    }
+
+    /**
+     * Get number of threads for CPU-heavy work (0 = half the available cores)
+     */
+    public int getCpuThreads() {
+        return Math.max(0, config.getInt("executors.cpu-threads", 0));
+    }
+
+    /**
+     * Get maximum number of queued CPU tasks
+     */
+    public int getCpuQueueLimit() {
+        return Math.max(1, config.getInt("executors.cpu-queue-limit", 128));
+    }
 }
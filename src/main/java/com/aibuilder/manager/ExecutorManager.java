@@ -0,0 +1,198 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Owns the bounded thread pools used for AI work so it never runs on the shared common pool.
+ * Blocking network and disk work and CPU-heavy parsing are kept in separate bulkheads, and on platform
+ * threads long-lived stream consumers get their own pool so they cannot fill the I/O pool.
+ */
+public class ExecutorManager {
+
+    private final AIStructureBuilder plugin;
+    @Getter
+    private final Executor ioExecutor;
+    @Getter
+    private final Executor streamExecutor;
+    @Getter
+    private final ThreadPoolExecutor cpuExecutor;
+    @Getter
+    private final boolean virtualThreads;
+    private final List<ExecutorService> services = new ArrayList<>();
+
+    /**
+     * Runs every task on its own thread, rejecting tasks while the limit of running tasks is reached
+     */
+    private static class LimitedExecutor implements Executor {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        private LimitedExecutor(ExecutorService delegate, int limit) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(limit);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("Too many running tasks");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
+
+    public ExecutorManager(AIStructureBuilder plugin) {
+        this.plugin = plugin;
+        ConfigManager config = plugin.getConfigManager();
+
+        ExecutorService virtualExecutor = config.isVirtualThreadsEnabled() ? createVirtualThreadExecutor("aibuilder-io-") : null;
+        this.virtualThreads = virtualExecutor != null;
+
+        int ioThreads = config.getIoThreads();
+        int streamThreads = config.getStreamThreads();
+        if (virtualExecutor != null) {
+            // Blocked virtual threads cost no platform thread, so stream consumers share the I/O executor
+            services.add(virtualExecutor);
+            this.ioExecutor = new LimitedExecutor(virtualExecutor, config.getVirtualThreadLimit());
+            this.streamExecutor = ioExecutor;
+        } else {
+            ThreadPoolExecutor ioPool = new ThreadPoolExecutor(ioThreads, ioThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getIoQueueLimit()),
+                createPlatformThreadFactory("aibuilder-io-"),
+                new ThreadPoolExecutor.AbortPolicy());
+            ioPool.allowCoreThreadTimeOut(true);
+            // Each streamed build holds a thread for as long as it runs, so these are not queued behind each other
+            ThreadPoolExecutor streamPool = new ThreadPoolExecutor(0, streamThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                createPlatformThreadFactory("aibuilder-stream-"),
+                new ThreadPoolExecutor.AbortPolicy());
+            services.add(ioPool);
+            services.add(streamPool);
+            this.ioExecutor = ioPool;
+            this.streamExecutor = streamPool;
+        }
+
+        int cpuThreads = config.getCpuThreads() > 0
+            ? config.getCpuThreads()
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.cpuExecutor = new ThreadPoolExecutor(cpuThreads, cpuThreads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(config.getCpuQueueLimit()),
+            createPlatformThreadFactory("aibuilder-cpu-"),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.cpuExecutor.allowCoreThreadTimeOut(true);
+        services.add(cpuExecutor);
+
+        plugin.getLogger().info("AI executors ready: " + (virtualThreads
+            ? "virtual I/O threads for up to " + config.getVirtualThreadLimit() + " tasks"
+            : ioThreads + " I/O threads, " + streamThreads + " stream threads") + ", " + cpuThreads + " CPU threads");
+    }
+
+    /**
+     * Run blocking network or disk work on the I/O pool
+     */
+    public <T> CompletableFuture<T> supplyIo(Supplier<T> task, Consumer<String> progressCallback) {
+        return submit(ioExecutor, task, progressCallback);
+    }
+
+    /**
+     * Run a long-lived stream consumer, such as reading a streamed response or pushing into a block stream
+     * that waits for placement, without holding a slot of the I/O pool
+     */
+    public <T> CompletableFuture<T> supplyStream(Supplier<T> task, Consumer<String> progressCallback) {
+        return submit(streamExecutor, task, progressCallback);
+    }
+
+    /**
+     * Run CPU-heavy work such as response parsing on the CPU pool
+     */
+    public <T> CompletableFuture<T> supplyCpu(Supplier<T> task, Consumer<String> progressCallback) {
+        return submit(cpuExecutor, task, progressCallback);
+    }
+
+    /**
+     * Stop accepting work and wait briefly for running tasks
+     */
+    public void shutdown() {
+        for (ExecutorService service : services) {
+            service.shutdownNow();
+        }
+        try {
+            for (ExecutorService service : services) {
+                service.awaitTermination(2, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submit a task, telling the player when it has to wait and failing fast when the queue is full
+     */
+    private <T> CompletableFuture<T> submit(Executor executor, Supplier<T> task, Consumer<String> progressCallback) {
+        // Only thread pools queue tasks, the virtual thread executor runs or rejects them right away
+        ThreadPoolExecutor pool = executor instanceof ThreadPoolExecutor ? (ThreadPoolExecutor) executor : null;
+        boolean saturated = pool != null && pool.getActiveCount() >= pool.getMaximumPoolSize();
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(task, executor);
+            if (saturated && progressCallback != null) {
+                progressCallback.accept("The AI builder is busy, your request is queued (position " +
+                    pool.getQueue().size() + ")");
+            }
+            return future;
+        } catch (RejectedExecutionException e) {
+            if (progressCallback != null) {
+                progressCallback.accept("The AI builder is at capacity right now, please try again in a moment");
+            }
+            plugin.getLogger().warning("Rejected AI task: " + (pool != null ? "queue of " + pool.getQueue().size() + " is full" : e.getMessage()));
+            return CompletableFuture.failedFuture(new RejectedExecutionException("AI builder is at capacity, please try again shortly"));
+        }
+    }
+
+    private ThreadFactory createPlatformThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Create an executor starting a virtual thread per task on Java 21+, or null when virtual threads are unavailable
+     */
+    private ExecutorService createVirtualThreadExecutor(String prefix) {
+        try {
+            // Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory()), looked up reflectively
+            // so the plugin still runs on Java 17
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, prefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            plugin.getLogger().info("Virtual threads are not available on this Java version, using a bounded platform thread pool");
+            return null;
+        }
+    }
+}
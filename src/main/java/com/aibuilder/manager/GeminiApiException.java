@@ -0,0 +1,26 @@
+package com.aibuilder.manager;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Error response returned by the Gemini API
+ */
+@Getter
+public class GeminiApiException extends IOException {
+
+    private final int statusCode;
+
+    public GeminiApiException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Check if the request may succeed when sent again (rate limits, timeouts and server errors)
+     */
+    public boolean isRetryable() {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+}
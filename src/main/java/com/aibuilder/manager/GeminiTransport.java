@@ -0,0 +1,345 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.model.GeminiResponse;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import okhttp3.*;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Single HTTP transport for all Gemini traffic.
+ * Every caller shares one connection pool and dispatcher so TLS sessions and HTTP/2 connections are reused.
+ */
+public class GeminiTransport {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final AIStructureBuilder plugin;
+    private final OkHttpClient httpClient;
+    private final Gson gson;
+
+    public GeminiTransport(AIStructureBuilder plugin) {
+        this.plugin = plugin;
+        this.gson = new Gson();
+
+        ConfigManager config = plugin.getConfigManager();
+
+        // Dispatcher limits apply to every enqueued call across all managers
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getHttpMaxRequests());
+        dispatcher.setMaxRequestsPerHost(config.getHttpMaxRequestsPerHost());
+
+        this.httpClient = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(new ConnectionPool(config.getHttpMaxIdleConnections(), config.getHttpKeepAliveSeconds(), TimeUnit.SECONDS))
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(config.getConnectTimeout(), TimeUnit.SECONDS)
+            .readTimeout(config.getReadTimeout(), TimeUnit.SECONDS)
+            .writeTimeout(config.getWriteTimeout(), TimeUnit.SECONDS)
+            .retryOnConnectionFailure(true)
+            .build();
+    }
+
+    /**
+     * Send a generateContent request and return the generated text
+     */
+    public CompletableFuture<String> generateContentAsync(String prompt) {
+        return generateContentDetailedAsync(prompt).thenApply(GeminiResponse::getText);
+    }
+
+    /**
+     * Send a generateContent request and return the generated text with its finish reason and token usage
+     */
+    public CompletableFuture<GeminiResponse> generateContentDetailedAsync(String prompt) {
+        CompletableFuture<GeminiResponse> future = new CompletableFuture<>();
+        Request request = createRequest(prompt, false);
+        logRequest(prompt);
+
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(translateTimeout(e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    checkResponse(response);
+                    JsonObject responseJson = JsonParser.parseString(response.body().string()).getAsJsonObject();
+                    String text = extractText(responseJson);
+                    if (text == null) {
+                        throw new IOException("No valid response content found");
+                    }
+                    GeminiResponse result = new GeminiResponse(text, extractFinishReason(responseJson),
+                        extractTokenCount(responseJson, "promptTokenCount"), extractTokenCount(responseJson, "candidatesTokenCount"));
+                    if (plugin.getConfigManager().shouldLogAIRequests()) {
+                        plugin.getLogger().info("AI response received (finish reason " + result.getFinishReason() +
+                            ", " + result.getOutputTokens() + " output tokens)");
+                    }
+                    future.complete(result);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Send a generateContent request, waiting for the generated text
+     */
+    public String generateContent(String prompt) throws IOException {
+        return await(generateContentAsync(prompt));
+    }
+
+    /**
+     * Send a streamGenerateContent request, feeding each text fragment to the consumer as it arrives.
+     * Fragments are consumed on a stream thread, so a consumer that blocks holds neither a dispatcher slot nor an I/O pool thread.
+     * The returned future completes once the stream has ended, and fails if it was cut off at the token limit.
+     */
+    public CompletableFuture<Void> streamGenerateContentAsync(String prompt, Consumer<String> fragmentConsumer) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Request request = createRequest(prompt, true);
+        logRequest(prompt);
+
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(translateTimeout(e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    checkResponse(response);
+                } catch (IOException e) {
+                    response.close();
+                    future.completeExceptionally(e);
+                    return;
+                }
+
+                // The dispatcher frees the call's slot once onResponse returns, the body is read on a stream thread
+                plugin.getExecutorManager().supplyStream(() -> {
+                    readStream(response, fragmentConsumer, future);
+                    return null;
+                }, null).exceptionally(throwable -> {
+                    response.close();
+                    future.completeExceptionally(throwable);
+                    return null;
+                });
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Send a streamGenerateContent request, waiting until the stream has ended
+     */
+    public void streamGenerateContent(String prompt, Consumer<String> fragmentConsumer) throws IOException {
+        await(streamGenerateContentAsync(prompt, fragmentConsumer));
+    }
+
+    /**
+     * Release pooled connections and dispatcher threads
+     */
+    public void shutdown() {
+        httpClient.dispatcher().cancelAll();
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Get number of pooled connections (idle and in use)
+     */
+    public int getConnectionCount() {
+        return httpClient.connectionPool().connectionCount();
+    }
+
+    /**
+     * Get number of calls currently running
+     */
+    public int getRunningCallCount() {
+        return httpClient.dispatcher().runningCallsCount();
+    }
+
+    /**
+     * Get number of calls waiting for a free dispatcher slot
+     */
+    public int getQueuedCallCount() {
+        return httpClient.dispatcher().queuedCallsCount();
+    }
+
+    private Request createRequest(String prompt, boolean streaming) {
+        String apiKey = plugin.getConfigManager().getGeminiApiKey();
+        String model = plugin.getConfigManager().getGeminiModel();
+        String url = plugin.getConfigManager().getGeminiBaseUrl() + model + (streaming ? ":streamGenerateContent?alt=sse&key=" : ":generateContent?key=") + apiKey;
+
+        Request.Builder builder = new Request.Builder()
+            .url(url)
+            .post(RequestBody.create(createRequestJson(prompt), JSON))
+            .addHeader("Content-Type", "application/json");
+        if (streaming) {
+            builder.addHeader("Accept", "text/event-stream");
+        }
+        return builder.build();
+    }
+
+    private String createRequestJson(String prompt) {
+        JsonObject part = new JsonObject();
+        part.addProperty("text", prompt);
+        JsonArray parts = new JsonArray();
+        parts.add(part);
+
+        JsonObject content = new JsonObject();
+        content.add("parts", parts);
+        JsonArray contents = new JsonArray();
+        contents.add(content);
+
+        JsonObject generationConfig = new JsonObject();
+        generationConfig.addProperty("temperature", plugin.getConfigManager().getTemperature());
+        generationConfig.addProperty("maxOutputTokens", plugin.getConfigManager().getMaxTokens());
+
+        JsonObject requestBody = new JsonObject();
+        requestBody.add("contents", contents);
+        requestBody.add("generationConfig", generationConfig);
+        return gson.toJson(requestBody);
+    }
+
+    private void readStream(Response response, Consumer<String> fragmentConsumer, CompletableFuture<Void> future) {
+        try (response) {
+            String finishReason = readEventStream(response.body().source(), fragmentConsumer);
+            if (plugin.getConfigManager().shouldLogAIRequests()) {
+                plugin.getLogger().info("AI stream finished (finish reason " + finishReason + ")");
+            }
+            if ("MAX_TOKENS".equals(finishReason)) {
+                throw new IOException("AI response was cut off at the output token limit");
+            }
+            future.complete(null);
+        } catch (IOException e) {
+            future.completeExceptionally(translateTimeout(e));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Read server-sent events until the stream ends, returning the last reported finish reason
+     */
+    private String readEventStream(BufferedSource source, Consumer<String> fragmentConsumer) throws IOException {
+        String finishReason = null;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            // Server-sent events: each "data:" line carries one partial GenerateContentResponse
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if (data.isEmpty() || data.equals("[DONE]")) {
+                continue;
+            }
+
+            JsonObject event = JsonParser.parseString(data).getAsJsonObject();
+            String text = extractText(event);
+            if (text != null) {
+                fragmentConsumer.accept(text);
+            }
+            String reason = extractFinishReason(event);
+            if (reason != null) {
+                finishReason = reason;
+            }
+        }
+        return finishReason;
+    }
+
+    /**
+     * Concatenate the text parts of the first candidate, or null if there are none
+     */
+    private String extractText(JsonObject responseJson) {
+        if (!responseJson.has("candidates") || responseJson.getAsJsonArray("candidates").size() == 0) {
+            return null;
+        }
+        JsonObject candidate = responseJson.getAsJsonArray("candidates").get(0).getAsJsonObject();
+        if (!candidate.has("content") || !candidate.getAsJsonObject("content").has("parts")) {
+            return null;
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (JsonElement part : candidate.getAsJsonObject("content").getAsJsonArray("parts")) {
+            JsonObject partObject = part.getAsJsonObject();
+            if (partObject.has("text")) {
+                text.append(partObject.get("text").getAsString());
+            }
+        }
+        return text.length() > 0 ? text.toString() : null;
+    }
+
+    private String extractFinishReason(JsonObject responseJson) {
+        if (!responseJson.has("candidates") || responseJson.getAsJsonArray("candidates").size() == 0) {
+            return null;
+        }
+        JsonObject candidate = responseJson.getAsJsonArray("candidates").get(0).getAsJsonObject();
+        return candidate.has("finishReason") ? candidate.get("finishReason").getAsString() : null;
+    }
+
+    /**
+     * Read a count from usageMetadata, or -1 if it was not reported
+     */
+    private int extractTokenCount(JsonObject responseJson, String field) {
+        if (!responseJson.has("usageMetadata")) {
+            return -1;
+        }
+        JsonObject usage = responseJson.getAsJsonObject("usageMetadata");
+        return usage.has(field) ? usage.get(field).getAsInt() : -1;
+    }
+
+    private void checkResponse(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            String errorBody = response.body() != null ? response.body().string() : "No error details";
+            throw new GeminiApiException(response.code(), "API request failed with code " + response.code() + ": " + errorBody);
+        }
+    }
+
+    private void logRequest(String prompt) {
+        if (plugin.getConfigManager().shouldLogAIRequests()) {
+            plugin.getLogger().info("Sending AI request: " + prompt.substring(0, Math.min(100, prompt.length())) + "...");
+        }
+    }
+
+    private IOException translateTimeout(IOException e) {
+        if (e instanceof java.net.SocketTimeoutException) {
+            return new IOException("Request timed out - try again or reduce structure complexity", e);
+        }
+        return e;
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for Gemini response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
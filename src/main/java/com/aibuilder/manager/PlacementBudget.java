@@ -0,0 +1,175 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+
+/**
+ * Decides how long builds may place blocks each tick. All builds together get a configured share of the tick,
+ * at most half of what the rest of the server leaves over, halved on every tick where TPS is below the
+ * threshold and recovering gradually afterwards. Placement cost and throughput are measured for /aistatus.
+ * Main thread only.
+ */
+public class PlacementBudget {
+
+    private static final double ALPHA = 0.2;
+    private static final double BACKOFF_FLOOR = 0.05;
+    private static final double RECOVERY_STEP = 0.02;
+
+    private final AIStructureBuilder plugin;
+    private final TickMonitor tickMonitor;
+
+    private long currentTick = -1;
+    private long tickBudgetNanos = 0;
+    private long remainingNanos = 0;
+    private long spentThisTick = 0;
+    private double averageSpentNanos = 0;
+    private double backoff = 1.0;
+    private double averageNanosPerBlock = 0;
+
+    private long windowStart = System.nanoTime();
+    private long lastPlacedAt = 0;
+    private int placedInWindow = 0;
+    private double blocksPerSecond = 0;
+
+    public PlacementBudget(AIStructureBuilder plugin, TickMonitor tickMonitor) {
+        this.plugin = plugin;
+        this.tickMonitor = tickMonitor;
+    }
+
+    /**
+     * Start placing in the current tick, the slice covers all builds together
+     */
+    public Slice startSlice() {
+        ConfigManager config = plugin.getConfigManager();
+        if (!config.isAdaptivePlacementEnabled()) {
+            return new Slice(Long.MAX_VALUE, config.getBlocksPerTick());
+        }
+
+        rollOver();
+        return new Slice(System.nanoTime() + remainingNanos, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get ticks between runs of the build scheduler
+     */
+    public long getTaskPeriod() {
+        ConfigManager config = plugin.getConfigManager();
+        return config.isAdaptivePlacementEnabled() ? 1L : Math.max(1, config.getBuildDelay());
+    }
+
+    /**
+     * Get blocks placed per second over the last second, 0 while nothing is being built
+     */
+    public double getBlocksPerSecond() {
+        return System.nanoTime() - lastPlacedAt > 2_000_000_000L ? 0 : blocksPerSecond;
+    }
+
+    /**
+     * Get placement time all builds may use in the current tick, in milliseconds
+     */
+    public double getTickBudgetMillis() {
+        return tickBudgetNanos / 1_000_000.0;
+    }
+
+    /**
+     * Get average time one block placement takes, in microseconds
+     */
+    public double getAverageMicrosPerBlock() {
+        return averageNanosPerBlock / 1000.0;
+    }
+
+    /**
+     * Get the factor the budget is currently reduced by because of low TPS, 1 when not backing off
+     */
+    public double getBackoff() {
+        return backoff;
+    }
+
+    /**
+     * Recompute the budget once per tick from the measured tick timing
+     */
+    private void rollOver() {
+        long tick = tickMonitor.getTickCount();
+        if (tick == currentTick) {
+            return;
+        }
+        currentTick = tick;
+        averageSpentNanos += ALPHA * (spentThisTick - averageSpentNanos);
+        spentThisTick = 0;
+
+        ConfigManager config = plugin.getConfigManager();
+        if (tickMonitor.getLastIntervalNanos() > 1_000_000_000.0 / config.getAdaptivePlacementMinTps()) {
+            backoff = Math.max(BACKOFF_FLOOR, backoff * 0.5);
+        } else {
+            backoff = Math.min(1.0, backoff + RECOVERY_STEP);
+        }
+
+        long budget = (long) (TickMonitor.TICK_NANOS * config.getTickBudgetPercent() / 100.0 * backoff);
+        double mspt = tickMonitor.getMspt();
+        if (mspt >= 0) {
+            // MSPT includes our own placement, leave that out to see what the rest of the server needs
+            long otherWork = (long) (mspt * 1_000_000) - (long) averageSpentNanos;
+            budget = Math.min(budget, (TickMonitor.TICK_NANOS - otherWork) / 2);
+        }
+        tickBudgetNanos = Math.max((long) (config.getMinPlacementBudgetMillis() * 1_000_000), budget);
+        remainingNanos = tickBudgetNanos;
+    }
+
+    private void record(int placed, long nanos) {
+        spentThisTick += nanos;
+        remainingNanos = Math.max(0, remainingNanos - nanos);
+        if (placed == 0) {
+            return;
+        }
+
+        double perBlock = (double) nanos / placed;
+        averageNanosPerBlock = averageNanosPerBlock == 0 ? perBlock : averageNanosPerBlock + ALPHA * (perBlock - averageNanosPerBlock);
+
+        long now = System.nanoTime();
+        if (now - lastPlacedAt > 2_000_000_000L) {
+            // Nothing was built for a while, start a fresh window
+            windowStart = now;
+            placedInWindow = 0;
+        }
+        lastPlacedAt = now;
+        placedInWindow += placed;
+        if (now - windowStart >= 1_000_000_000L) {
+            blocksPerSecond = placedInWindow * 1_000_000_000.0 / (now - windowStart);
+            windowStart = now;
+            placedInWindow = 0;
+        }
+    }
+
+    /**
+     * Placement time of all builds in one tick. At least one block is always allowed, so builds cannot stall.
+     */
+    public final class Slice {
+
+        private final long start = System.nanoTime();
+        private final long deadline;
+        private final int maxBlocks;
+        private int placed = 0;
+
+        private Slice(long deadline, int maxBlocks) {
+            this.deadline = deadline;
+            this.maxBlocks = maxBlocks;
+        }
+
+        /**
+         * Check if another block may be placed
+         */
+        public boolean hasTime() {
+            return placed < maxBlocks && (placed == 0 || System.nanoTime() < deadline);
+        }
+
+        public void placed() {
+            placed++;
+        }
+
+        /**
+         * Record the time used, call once placing for this tick is done
+         */
+        public void finish() {
+            record(placed, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.BlockMerger;
+import com.aibuilder.util.MaterialUtil;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Blocks of a structure prepared for placement: absolute world coordinates and a palette id per block,
+ * with every distinct material and block state resolved once. Compiling does all name lookups and checks, so it can run on
+ * a worker thread and placing a block on the main thread only reads arrays.
+ * <p>
+ * An ordered plan places blocks by support: air first, then solid blocks bottom-up, then blocks that hang on
+ * or connect to their neighbours, such as torches, doors, stairs and fences. Air and solid blocks are placed
+ * without physics, so nothing falls half-built and no neighbour updates run per block. Attached blocks come
+ * last and are placed with physics, once what they hang on exists, so they attach and connect to their neighbours.
+ * Within each phase blocks are grouped by chunk, visiting chunks in a serpentine order, so placement finishes
+ * a chunk before moving to the next and only a few chunks need to be loaded at a time.
+ */
+public class PlacementPlan {
+
+    /**
+     * Placement phases in the order an ordered plan runs them
+     */
+    public static final int PHASE_CLEAR = 0;
+    public static final int PHASE_SOLID = 1;
+    public static final int PHASE_ATTACHED = 2;
+
+    private final World world;
+    private final Palette palette;
+    private final boolean ordered;
+    private int size;
+    private int skippedCount = 0;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] zs;
+    private final short[] states;
+    // Chunk id of every block, chunk ids number the touched chunks in placement order
+    private final int[] chunks;
+    private int[] chunkXs;
+    private int[] chunkZs;
+    // Consecutive placements in the same chunk form a run
+    private int[] runStarts;
+    private int[] runChunks;
+
+    private PlacementPlan(World world, Palette palette, int size, boolean ordered) {
+        this.world = world;
+        this.palette = palette;
+        this.size = size;
+        this.ordered = ordered;
+        this.xs = new int[size];
+        this.ys = new int[size];
+        this.zs = new int[size];
+        this.states = new short[size];
+        this.chunks = new int[size];
+    }
+
+    /**
+     * Compile blocks relative to an origin into an empty palette, optionally ordered by support and placed
+     * without physics. Blocks placed more than once collapse to the block written last.
+     * Does not touch the world, safe to call off the main thread.
+     */
+    public static PlacementPlan compile(List<StructureData.Block> blocks, Location origin, Palette palette, boolean ordered) {
+        int originX = origin.getBlockX();
+        int originY = origin.getBlockY();
+        int originZ = origin.getBlockZ();
+
+        // Reordering must not undo overrides, such as AIR cutting a door into a wall placed before it
+        BlockMerger merger = new BlockMerger(false, blocks.size());
+        merger.addAll(blocks);
+        BlockBuffer buffer = merger.getBuffer();
+        PlacementPlan plan = new PlacementPlan(origin.getWorld(), palette, buffer.size(), ordered);
+
+        // Resolve each palette entry of the buffer once, then only copy ids
+        int[] remap = new int[buffer.getPaletteSize()];
+        for (int state = 0; state < remap.length; state++) {
+            remap[state] = palette.resolve(buffer.getPaletteMaterial(state), buffer.getPaletteData(state));
+        }
+        for (int i = 0; i < buffer.size(); i++) {
+            plan.xs[i] = originX + buffer.getX(i);
+            plan.ys[i] = originY + buffer.getY(i);
+            plan.zs[i] = originZ + buffer.getZ(i);
+            plan.states[i] = (short) remap[buffer.getState(i)];
+        }
+
+        plan.numberChunks();
+        if (ordered) {
+            plan.sortForPlacement();
+        }
+        plan.findChunkRuns();
+        return plan;
+    }
+
+    /**
+     * Get number of blocks to place
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Place the block at an index, main thread only
+     */
+    public void place(int index) {
+        int id = states[index] & 0xFFFF;
+        boolean applyPhysics = !ordered || palette.getPhase(id) == PHASE_ATTACHED;
+        palette.place(id, world.getBlockAt(xs[index], ys[index], zs[index]), applyPhysics);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    public int getZ(int index) {
+        return zs[index];
+    }
+
+    public Palette getPalette() {
+        return palette;
+    }
+
+    /**
+     * Get number of placements dropped because the world already had the block
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Drop placements that would not change the world. Snapshots of the touched chunks are taken before
+     * placing starts, indexed by chunk id, null for chunks that were not loaded. Does not touch the world,
+     * safe to call off the main thread. Returns the number of dropped placements.
+     */
+    public int skipUnchanged(ChunkSnapshot[] snapshots) {
+        int minY = world.getMinHeight();
+        int maxY = world.getMaxHeight();
+
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            ChunkSnapshot snapshot = snapshots[chunks[i]];
+            if (snapshot != null && ys[i] >= minY && ys[i] < maxY && isInPlace(snapshot, i)) {
+                continue;
+            }
+            xs[kept] = xs[i];
+            ys[kept] = ys[i];
+            zs[kept] = zs[i];
+            states[kept] = states[i];
+            chunks[kept] = chunks[i];
+            kept++;
+        }
+
+        int skipped = size - kept;
+        size = kept;
+        skippedCount += skipped;
+        findChunkRuns();
+        return skipped;
+    }
+
+    private boolean isInPlace(ChunkSnapshot snapshot, int index) {
+        int id = states[index] & 0xFFFF;
+        int x = xs[index] & 15;
+        int z = zs[index] & 15;
+        // Compare the cheap material first, most differing blocks stop here
+        if (snapshot.getBlockType(x, ys[index], z) != palette.getMaterial(id)) {
+            return false;
+        }
+        return snapshot.getBlockData(x, ys[index], z).equals(palette.getTargetData(id));
+    }
+
+    /**
+     * Get number of distinct chunks the plan touches
+     */
+    public int getChunkCount() {
+        return chunkXs.length;
+    }
+
+    public int getChunkX(int chunk) {
+        return chunkXs[chunk];
+    }
+
+    public int getChunkZ(int chunk) {
+        return chunkZs[chunk];
+    }
+
+    /**
+     * Get number of runs, stretches of consecutive placements within one chunk
+     */
+    public int getRunCount() {
+        return runStarts.length;
+    }
+
+    /**
+     * Get the index of the first placement of a run
+     */
+    public int getRunStart(int run) {
+        return runStarts[run];
+    }
+
+    /**
+     * Get the chunk id of a run
+     */
+    public int getRunChunk(int run) {
+        return runChunks[run];
+    }
+
+    /**
+     * Give every touched chunk an id, numbering chunks column by column and reversing direction on every
+     * other column, so consecutive ids are neighbours
+     */
+    private void numberChunks() {
+        if (size == 0) {
+            chunkXs = new int[0];
+            chunkZs = new int[0];
+            return;
+        }
+
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, xs[i] >> 4);
+            maxX = Math.max(maxX, xs[i] >> 4);
+            minZ = Math.min(minZ, zs[i] >> 4);
+            maxZ = Math.max(maxZ, zs[i] >> 4);
+        }
+        // Structures are bounded by the maximum structure size, the grid stays small
+        int width = maxX - minX + 1;
+        int depth = maxZ - minZ + 1;
+        int[] grid = new int[width * depth];
+        for (int i = 0; i < size; i++) {
+            grid[((xs[i] >> 4) - minX) * depth + (zs[i] >> 4) - minZ] = 1;
+        }
+
+        int count = 0;
+        int[] cellXs = new int[grid.length];
+        int[] cellZs = new int[grid.length];
+        for (int x = 0; x < width; x++) {
+            for (int step = 0; step < depth; step++) {
+                int z = x % 2 == 0 ? step : depth - 1 - step;
+                int cell = x * depth + z;
+                if (grid[cell] != 0) {
+                    grid[cell] = count;
+                    cellXs[count] = minX + x;
+                    cellZs[count] = minZ + z;
+                    count++;
+                }
+            }
+        }
+        chunkXs = Arrays.copyOf(cellXs, count);
+        chunkZs = Arrays.copyOf(cellZs, count);
+
+        for (int i = 0; i < size; i++) {
+            chunks[i] = grid[((xs[i] >> 4) - minX) * depth + (zs[i] >> 4) - minZ];
+        }
+    }
+
+    /**
+     * Reorder blocks by phase, then by chunk, then bottom-up, keeping the original order otherwise
+     */
+    private void sortForPlacement() {
+        // Phase, chunk, height and original index in one long, so a primitive sort orders all four
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            int phase = palette.getPhase(states[i] & 0xFFFF);
+            keys[i] = (long) phase << 61 | (long) chunks[i] << 40 | (long) ((ys[i] + 2048) & 0xFFF) << 28 | i;
+        }
+        Arrays.sort(keys);
+
+        int[] sortedXs = new int[size];
+        int[] sortedYs = new int[size];
+        int[] sortedZs = new int[size];
+        short[] sortedStates = new short[size];
+        int[] sortedChunks = new int[size];
+        for (int i = 0; i < size; i++) {
+            int from = (int) (keys[i] & 0xFFFFFFF);
+            sortedXs[i] = xs[from];
+            sortedYs[i] = ys[from];
+            sortedZs[i] = zs[from];
+            sortedStates[i] = states[from];
+            sortedChunks[i] = chunks[from];
+        }
+        System.arraycopy(sortedXs, 0, xs, 0, size);
+        System.arraycopy(sortedYs, 0, ys, 0, size);
+        System.arraycopy(sortedZs, 0, zs, 0, size);
+        System.arraycopy(sortedStates, 0, states, 0, size);
+        System.arraycopy(sortedChunks, 0, chunks, 0, size);
+    }
+
+    /**
+     * Split the placements into runs of one chunk each
+     */
+    private void findChunkRuns() {
+        int[] starts = new int[16];
+        int[] runChunkIds = new int[16];
+        int count = 0;
+        int previous = -1;
+        for (int step = 0; step < size; step++) {
+            int chunk = chunks[step];
+            if (chunk == previous) {
+                continue;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                runChunkIds = Arrays.copyOf(runChunkIds, count * 2);
+            }
+            starts[count] = step;
+            runChunkIds[count++] = chunk;
+            previous = chunk;
+        }
+        runStarts = Arrays.copyOf(starts, count);
+        runChunks = Arrays.copyOf(runChunkIds, count);
+    }
+
+    /**
+     * Materials and block states resolved from block names, each distinct material and data pair once.
+     * Not thread-safe, a palette is filled by one thread and handed over before placing starts.
+     */
+    public static class Palette {
+
+        private final BlockDataCache blockDataCache;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private Material[] materials = new Material[16];
+        private BlockData[] blockData = new BlockData[16];
+        // Default state of materials placed without data, created when first compared
+        private BlockData[] defaultData = new BlockData[16];
+        private byte[] phases = new byte[16];
+        private int size = 0;
+
+        public Palette(BlockDataCache blockDataCache) {
+            this.blockDataCache = blockDataCache;
+        }
+
+        /**
+         * Get the id for a material and data pair, resolving it on first use
+         */
+        public int resolve(String material, String data) {
+            // Most blocks have no data, their key needs no concatenation
+            String key = data == null || data.isEmpty() ? String.valueOf(material) : material + "[" + data + "]";
+            Integer id = ids.get(key);
+            if (id != null) {
+                return id;
+            }
+            if (size == BlockBuffer.MAX_PALETTE_SIZE) {
+                throw new IllegalStateException("Placement palette is full (" + BlockBuffer.MAX_PALETTE_SIZE + " distinct blocks)");
+            }
+
+            if (size == materials.length) {
+                materials = Arrays.copyOf(materials, size * 2);
+                blockData = Arrays.copyOf(blockData, size * 2);
+                defaultData = Arrays.copyOf(defaultData, size * 2);
+                phases = Arrays.copyOf(phases, size * 2);
+            }
+            // Unknown and unsafe materials resolve to stone, states that do not parse to the plain material
+            Material resolved = MaterialUtil.getMaterialSafely(material);
+            materials[size] = resolved;
+            blockData[size] = blockDataCache.get(resolved, data);
+            phases[size] = (byte) (resolved.isAir() ? PHASE_CLEAR :
+                MaterialUtil.dependsOnNeighbours(resolved) ? PHASE_ATTACHED : PHASE_SOLID);
+            ids.put(key, size);
+            return size++;
+        }
+
+        /**
+         * Set a block to the state of a palette id
+         */
+        public void place(int id, Block block, boolean applyPhysics) {
+            BlockData data = blockData[id];
+            if (data != null) {
+                block.setBlockData(data, applyPhysics);
+            } else {
+                block.setType(materials[id], applyPhysics);
+            }
+        }
+
+        public Material getMaterial(int id) {
+            return materials[id];
+        }
+
+        /**
+         * Get the block state a palette id places
+         */
+        public BlockData getTargetData(int id) {
+            if (blockData[id] != null) {
+                return blockData[id];
+            }
+            if (defaultData[id] == null) {
+                defaultData[id] = materials[id].createBlockData();
+            }
+            return defaultData[id];
+        }
+
+        /**
+         * Get the placement phase of a palette id
+         */
+        public int getPhase(int id) {
+            return phases[id];
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.model.GeminiResponse;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Central gate in front of every Gemini call. Requests are admitted by token buckets sized to the
+ * API quota (requests and tokens per minute), higher priority classes go first and players within a
+ * class take turns so one large chunked build cannot starve everybody else.
+ */
+public class RequestScheduler {
+
+    /**
+     * Request priority classes, highest first
+     */
+    public enum Priority { BUILD, PREVIEW, BACKGROUND }
+
+    /**
+     * Requester used for work that is not started by a player
+     */
+    public static final UUID SERVER = new UUID(0L, 0L);
+
+    private final AIStructureBuilder plugin;
+    private final ScheduledExecutorService dispatcher;
+    private final TokenBucket requestBucket;
+    private final TokenBucket tokenBucket;
+
+    // Per priority: player -> waiting requests, iterated round-robin
+    private final EnumMap<Priority, LinkedHashMap<UUID, ArrayDeque<Ticket<?>>>> queues = new EnumMap<>(Priority.class);
+    private int queuedCount = 0;
+    private boolean wakeUpScheduled = false;
+
+    /**
+     * A request waiting for rate limit capacity
+     */
+    private static class Ticket<T> {
+        private final Supplier<CompletableFuture<T>> call;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final int estimatedTokens;
+        private volatile boolean started = false;
+
+        private Ticket(Supplier<CompletableFuture<T>> call, int estimatedTokens) {
+            this.call = call;
+            this.estimatedTokens = estimatedTokens;
+        }
+
+        /**
+         * Start the call, handing its result and the tokens charged for it to settle once it completes
+         */
+        private void start(ObjIntConsumer<Object> settle) {
+            CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    settle.accept(value, estimatedTokens);
+                    result.complete(value);
+                }
+            });
+        }
+    }
+
+    /**
+     * Token bucket refilled continuously at capacity per minute
+     */
+    private static class TokenBucket {
+        private final double capacity;
+        private final double refillPerMilli;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(double perMinute) {
+            this.capacity = perMinute;
+            this.refillPerMilli = perMinute / 60000.0;
+            this.tokens = perMinute;
+            this.lastRefill = System.currentTimeMillis();
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMilli);
+            lastRefill = now;
+        }
+
+        /**
+         * A request larger than the whole bucket is admitted once the bucket is full
+         */
+        private double required(double amount) {
+            return Math.min(amount, capacity);
+        }
+
+        private boolean canTake(double amount) {
+            return tokens >= required(amount);
+        }
+
+        private void take(double amount) {
+            tokens -= amount;
+        }
+
+        /**
+         * Return tokens taken for a request, or take more with a negative amount
+         */
+        private void giveBack(double amount) {
+            tokens = Math.min(capacity, tokens + amount);
+        }
+
+        private long millisUntil(double amount) {
+            double missing = required(amount) - tokens;
+            return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerMilli);
+        }
+    }
+
+    public RequestScheduler(AIStructureBuilder plugin) {
+        this.plugin = plugin;
+        this.requestBucket = new TokenBucket(plugin.getConfigManager().getRateLimitRequestsPerMinute());
+        this.tokenBucket = new TokenBucket(plugin.getConfigManager().getRateLimitTokensPerMinute());
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new LinkedHashMap<>());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aibuilder-scheduler-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a Gemini call for the given player, starting it once the rate limit allows
+     */
+    public <T> CompletableFuture<T> submit(UUID requester, Priority priority, String prompt,
+                                           Supplier<CompletableFuture<T>> call, Consumer<String> progressCallback) {
+        if (!plugin.getConfigManager().isRateLimitEnabled()) {
+            return call.get();
+        }
+
+        UUID owner = requester != null ? requester : SERVER;
+        Priority requestPriority = priority != null ? priority : Priority.BACKGROUND;
+        Ticket<T> ticket = new Ticket<>(call, estimateTokens(prompt));
+
+        synchronized (this) {
+            if (queuedCount >= plugin.getConfigManager().getRateLimitMaxQueued()) {
+                if (progressCallback != null) {
+                    progressCallback.accept("The AI request queue is full, please try again in a moment");
+                }
+                return CompletableFuture.failedFuture(new RejectedExecutionException("AI request queue is full, please try again shortly"));
+            }
+
+            queues.get(requestPriority).computeIfAbsent(owner, key -> new ArrayDeque<>()).addLast(ticket);
+            queuedCount++;
+        }
+        dispatch();
+
+        if (!ticket.started && progressCallback != null) {
+            int position;
+            long estimatedWait;
+            synchronized (this) {
+                position = getPosition(requestPriority, owner);
+                estimatedWait = estimateWait(position, ticket.estimatedTokens);
+            }
+            if (!ticket.started) {
+                progressCallback.accept("Waiting for AI capacity: position " + position + " in queue, estimated wait ~" +
+                    Math.max(1, (estimatedWait + 999) / 1000) + "s");
+            }
+        }
+        return ticket.result;
+    }
+
+    /**
+     * Get number of requests waiting for rate limit capacity
+     */
+    public synchronized int getQueuedCount() {
+        return queuedCount;
+    }
+
+    /**
+     * Fail waiting requests and stop the dispatcher
+     */
+    public void shutdown() {
+        List<Ticket<?>> pending = new ArrayList<>();
+        synchronized (this) {
+            for (LinkedHashMap<UUID, ArrayDeque<Ticket<?>>> players : queues.values()) {
+                for (ArrayDeque<Ticket<?>> tickets : players.values()) {
+                    pending.addAll(tickets);
+                }
+                players.clear();
+            }
+            queuedCount = 0;
+        }
+        dispatcher.shutdownNow();
+        for (Ticket<?> ticket : pending) {
+            ticket.result.completeExceptionally(new CancellationException("Plugin is shutting down"));
+        }
+    }
+
+    /**
+     * Start every request the buckets currently allow
+     */
+    private void dispatch() {
+        // Calls are only enqueued on the HTTP dispatcher, but still start them outside the lock
+        for (Ticket<?> ticket : takeReady()) {
+            ticket.start(this::settleTokens);
+        }
+    }
+
+    /**
+     * Correct the token bucket by the difference between the estimate charged for a call and the usage its response reports
+     */
+    private void settleTokens(Object value, int estimatedTokens) {
+        if (!(value instanceof GeminiResponse)) {
+            return;
+        }
+        GeminiResponse response = (GeminiResponse) value;
+        if (response.getPromptTokens() < 0 || response.getOutputTokens() < 0) {
+            return;
+        }
+        int unused = estimatedTokens - response.getPromptTokens() - response.getOutputTokens();
+        synchronized (this) {
+            tokenBucket.refill(System.currentTimeMillis());
+            tokenBucket.giveBack(unused);
+        }
+        if (unused > 0) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Take the requests that fit in the buckets, scheduling a wake-up for the next one
+     */
+    private synchronized List<Ticket<?>> takeReady() {
+        long now = System.currentTimeMillis();
+        requestBucket.refill(now);
+        tokenBucket.refill(now);
+
+        List<Ticket<?>> ready = new ArrayList<>();
+        Ticket<?> next;
+        while ((next = peekNext()) != null) {
+            if (!requestBucket.canTake(1) || !tokenBucket.canTake(next.estimatedTokens)) {
+                scheduleWakeUp(Math.max(requestBucket.millisUntil(1), tokenBucket.millisUntil(next.estimatedTokens)));
+                break;
+            }
+            requestBucket.take(1);
+            tokenBucket.take(next.estimatedTokens);
+            Ticket<?> ticket = pollNext();
+            ticket.started = true;
+            ready.add(ticket);
+        }
+        return ready;
+    }
+
+    /**
+     * Get the next request: highest priority class first, then the player whose turn it is
+     */
+    private Ticket<?> peekNext() {
+        for (LinkedHashMap<UUID, ArrayDeque<Ticket<?>>> players : queues.values()) {
+            if (!players.isEmpty()) {
+                return players.values().iterator().next().peekFirst();
+            }
+        }
+        return null;
+    }
+
+    private Ticket<?> pollNext() {
+        for (LinkedHashMap<UUID, ArrayDeque<Ticket<?>>> players : queues.values()) {
+            if (players.isEmpty()) {
+                continue;
+            }
+            Map.Entry<UUID, ArrayDeque<Ticket<?>>> turn = players.entrySet().iterator().next();
+            UUID owner = turn.getKey();
+            ArrayDeque<Ticket<?>> tickets = turn.getValue();
+            Ticket<?> ticket = tickets.pollFirst();
+
+            // Move the player to the back of the rotation
+            players.remove(owner);
+            if (!tickets.isEmpty()) {
+                players.put(owner, tickets);
+            }
+            queuedCount--;
+            return ticket;
+        }
+        return null;
+    }
+
+    /**
+     * Get 1-based queue position of the newest request of this player
+     */
+    private int getPosition(Priority priority, UUID owner) {
+        int ahead = 0;
+        for (Map.Entry<Priority, LinkedHashMap<UUID, ArrayDeque<Ticket<?>>>> entry : queues.entrySet()) {
+            if (entry.getKey().ordinal() < priority.ordinal()) {
+                for (ArrayDeque<Ticket<?>> tickets : entry.getValue().values()) {
+                    ahead += tickets.size();
+                }
+            }
+        }
+
+        // Within the class every player gets one request per round
+        LinkedHashMap<UUID, ArrayDeque<Ticket<?>>> players = queues.get(priority);
+        ArrayDeque<Ticket<?>> own = players.get(owner);
+        int rounds = own != null ? own.size() : 1;
+        for (Map.Entry<UUID, ArrayDeque<Ticket<?>>> entry : players.entrySet()) {
+            if (entry.getKey().equals(owner)) {
+                ahead += rounds - 1;
+            } else {
+                ahead += Math.min(entry.getValue().size(), rounds);
+            }
+        }
+        return ahead + 1;
+    }
+
+    /**
+     * Estimate milliseconds until both buckets have refilled enough for this position
+     */
+    private long estimateWait(int position, int estimatedTokens) {
+        long now = System.currentTimeMillis();
+        requestBucket.refill(now);
+        tokenBucket.refill(now);
+        double byRequests = (position - requestBucket.tokens) / requestBucket.refillPerMilli;
+        double byTokens = ((double) position * estimatedTokens - tokenBucket.tokens) / tokenBucket.refillPerMilli;
+        return Math.max(0L, (long) Math.ceil(Math.max(byRequests, byTokens)));
+    }
+
+    /**
+     * Rough token estimate: about four characters per prompt token plus the output allowance.
+     * Settled against the reported usage once a response arrives.
+     */
+    private int estimateTokens(String prompt) {
+        int promptTokens = prompt != null ? prompt.length() / 4 : 0;
+        return promptTokens + plugin.getConfigManager().getMaxTokens();
+    }
+
+    private void scheduleWakeUp(long delayMillis) {
+        if (wakeUpScheduled) {
+            return;
+        }
+        wakeUpScheduled = true;
+        try {
+            dispatcher.schedule(() -> {
+                synchronized (this) {
+                    wakeUpScheduled = false;
+                }
+                dispatch();
+            }, Math.max(1, delayMillis), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Plugin is shutting down
+            wakeUpScheduled = false;
+        }
+    }
+}
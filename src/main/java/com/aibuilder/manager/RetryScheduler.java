@@ -0,0 +1,216 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Retries asynchronous Gemini calls without holding a thread between attempts.
+ * Backoff uses decorrelated jitter, retries are limited by a global budget and
+ * every attempt goes through the circuit breaker.
+ */
+public class RetryScheduler {
+
+    private final AIStructureBuilder plugin;
+    private final ScheduledExecutorService timer;
+    @Getter
+    private final CircuitBreaker circuitBreaker;
+
+    private final Object budgetLock = new Object();
+    private double retryTokens;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong retriesDenied = new AtomicLong();
+
+    public RetryScheduler(AIStructureBuilder plugin) {
+        this.plugin = plugin;
+        this.circuitBreaker = new CircuitBreaker(plugin);
+        this.retryTokens = plugin.getConfigManager().getRetryBudgetBurst();
+
+        AtomicInteger counter = new AtomicInteger();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aibuilder-retry-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Run an asynchronous operation, retrying retryable failures
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> operation, Consumer<String> progressCallback) {
+        return execute(operation, progressCallback, error -> true);
+    }
+
+    /**
+     * Run an asynchronous operation, retrying retryable failures while the predicate allows it
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> operation, Consumer<String> progressCallback,
+                                            Predicate<Throwable> canRetry) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        requests.incrementAndGet();
+        depositRetryToken();
+
+        if (!circuitBreaker.allowRequest()) {
+            result.completeExceptionally(createCircuitOpenException());
+            return result;
+        }
+
+        long baseDelay = plugin.getConfigManager().getRetryDelaySeconds() * 1000L;
+        runAttempt(operation, progressCallback, canRetry, result, 1, baseDelay);
+        return result;
+    }
+
+    /**
+     * Stop the retry timer, pending retries are dropped
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public long getRetriesDeniedCount() {
+        return retriesDenied.get();
+    }
+
+    private <T> void runAttempt(Supplier<CompletableFuture<T>> operation, Consumer<String> progressCallback,
+                                Predicate<Throwable> canRetry, CompletableFuture<T> result, int attempt, long previousDelay) {
+        CompletableFuture<T> future;
+        try {
+            future = operation.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+
+        future.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                circuitBreaker.recordSuccess();
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = unwrap(throwable);
+            if (isApiFailure(cause)) {
+                circuitBreaker.recordFailure();
+            } else {
+                // The API answered, e.g. with content we could not use
+                circuitBreaker.recordSuccess();
+            }
+
+            int maxAttempts = plugin.getConfigManager().getRetryMaxAttempts();
+            plugin.getLogger().warning("Attempt " + attempt + "/" + maxAttempts + " failed: " + cause.getMessage());
+
+            if (attempt >= maxAttempts || !isRetryable(cause) || !canRetry.test(cause)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (!circuitBreaker.allowRequest()) {
+                notify(progressCallback, "The AI service is failing right now, not retrying");
+                result.completeExceptionally(createCircuitOpenException());
+                return;
+            }
+            if (!withdrawRetryToken()) {
+                retriesDenied.incrementAndGet();
+                plugin.getLogger().warning("Retry budget exhausted, giving up after attempt " + attempt);
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            long delay = nextDelay(previousDelay);
+            retries.incrementAndGet();
+            notify(progressCallback, "Attempt " + attempt + " failed: " + cause.getMessage());
+            notify(progressCallback, String.format("Retrying in %.1f seconds...", delay / 1000.0));
+
+            try {
+                timer.schedule(() -> runAttempt(operation, progressCallback, canRetry, result, attempt + 1, delay),
+                    delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Plugin is shutting down
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Decorrelated jitter: a random delay between the base delay and three times the previous delay
+     */
+    private long nextDelay(long previousDelay) {
+        long baseDelay = Math.max(1L, plugin.getConfigManager().getRetryDelaySeconds() * 1000L);
+        long maxDelay = Math.max(baseDelay, plugin.getConfigManager().getRetryMaxDelaySeconds() * 1000L);
+        long upper = Math.max(baseDelay + 1, previousDelay * 3);
+        return Math.min(maxDelay, ThreadLocalRandom.current().nextLong(baseDelay, upper));
+    }
+
+    private void depositRetryToken() {
+        synchronized (budgetLock) {
+            retryTokens = Math.min(plugin.getConfigManager().getRetryBudgetBurst(),
+                retryTokens + plugin.getConfigManager().getRetryBudgetRatio());
+        }
+    }
+
+    private boolean withdrawRetryToken() {
+        synchronized (budgetLock) {
+            if (retryTokens < 1.0) {
+                return false;
+            }
+            retryTokens -= 1.0;
+            return true;
+        }
+    }
+
+    /**
+     * Check if a failure may go away when the request is sent again
+     */
+    private boolean isRetryable(Throwable cause) {
+        if (cause instanceof GeminiApiException) {
+            return ((GeminiApiException) cause).isRetryable();
+        }
+        return !(cause instanceof CancellationException) &&
+            !(cause instanceof RejectedExecutionException) &&
+            !(cause instanceof IllegalStateException);
+    }
+
+    /**
+     * Check if a failure says something about the health of the API itself
+     */
+    private boolean isApiFailure(Throwable cause) {
+        if (cause instanceof GeminiApiException) {
+            return ((GeminiApiException) cause).isRetryable();
+        }
+        return cause instanceof IOException;
+    }
+
+    private IOException createCircuitOpenException() {
+        return new IOException("AI service is temporarily unavailable, try again in " +
+            Math.max(1, circuitBreaker.getSecondsUntilRetry()) + " seconds");
+    }
+
+    private Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof ExecutionException) &&
+            throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+
+    private void notify(Consumer<String> progressCallback, String message) {
+        if (progressCallback != null) {
+            progressCallback.accept(message);
+        }
+    }
+}
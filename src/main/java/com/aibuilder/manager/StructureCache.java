@@ -0,0 +1,330 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.StructureData;
+import com.google.gson.Gson;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Two-tier cache of generated structures: a size-bounded in-memory LRU backed by
+ * gzip-compressed files in the plugin data folder that survive restarts
+ */
+public class StructureCache {
+
+    private static final String FILE_SUFFIX = ".json.gz";
+
+    private final AIStructureBuilder plugin;
+    private final Gson gson;
+    private final File cacheFolder;
+    private final LinkedHashMap<String, CacheEntry> memory;
+    private long memoryBlocks = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static class CacheEntry {
+        private final StructureData structure;
+        private final long createdAt;
+        private final int weight;
+
+        private CacheEntry(StructureData structure, long createdAt) {
+            this.structure = structure;
+            this.createdAt = createdAt;
+            this.weight = Math.max(1, structure.getBlocks().size());
+        }
+    }
+
+    public StructureCache(AIStructureBuilder plugin) {
+        this.plugin = plugin;
+        this.gson = new Gson();
+        this.cacheFolder = new File(plugin.getDataFolder(), "cache");
+        // Access-ordered map gives LRU iteration order
+        this.memory = new LinkedHashMap<>(64, 0.75f, true);
+
+        if (isEnabled() && !cacheFolder.exists() && !cacheFolder.mkdirs()) {
+            plugin.getLogger().warning("Could not create structure cache folder: " + cacheFolder.getPath());
+        }
+        pruneDisk();
+    }
+
+    /**
+     * Create a content-addressed cache key for a generation request
+     */
+    public static String createKey(String description, int maxSize, String model, double temperature) {
+        String normalized = normalizeDescription(description) + "|" + maxSize + "|" + model + "|" +
+            String.format(Locale.ROOT, "%.2f", temperature);
+        byte[] bytes = normalized.getBytes(StandardCharsets.UTF_8);
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is always available, but fall back to the normalized text just in case, hex encoded to stay a valid file name
+            return toHex(bytes);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Normalize a description so trivially different phrasings share a cache entry
+     */
+    public static String normalizeDescription(String description) {
+        if (description == null) {
+            return "";
+        }
+        return description.toLowerCase(Locale.ROOT)
+            .replaceAll("[^a-z0-9 ]", " ")
+            .replaceAll("\\s+", " ")
+            .trim();
+    }
+
+    /**
+     * Look up a cached structure, or null on a miss
+     */
+    public StructureData get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            CacheEntry entry = memory.get(key);
+            if (entry != null) {
+                if (!isExpired(entry.createdAt, now)) {
+                    hits.incrementAndGet();
+                    return entry.structure;
+                }
+                removeFromMemory(key);
+                evictions.incrementAndGet();
+            }
+        }
+
+        File file = getCacheFile(key);
+        if (file.exists()) {
+            if (isExpired(file.lastModified(), now)) {
+                deleteFile(file);
+                evictions.incrementAndGet();
+            } else {
+                StructureData structure = readFromDisk(file);
+                if (structure != null && structure.getBlocks() != null && !structure.getBlocks().isEmpty()) {
+                    hits.incrementAndGet();
+                    putInMemory(key, new CacheEntry(structure, file.lastModified()));
+                    return structure;
+                }
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Store a generated structure in memory right away, the disk write runs later on the I/O pool
+     */
+    public void put(String key, StructureData structure) {
+        if (!isEnabled() || structure == null || structure.getBlocks() == null || structure.getBlocks().isEmpty()) {
+            return;
+        }
+
+        putInMemory(key, new CacheEntry(structure, System.currentTimeMillis()));
+        plugin.getExecutorManager().supplyIo(() -> {
+            storeOnDisk(key, structure);
+            return null;
+        }, null);
+    }
+
+    /**
+     * Remove every cached structure
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBlocks = 0;
+        }
+        File[] files = listCacheFiles();
+        for (File file : files) {
+            deleteFile(file);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Get number of structures held in memory
+     */
+    public int getMemoryEntryCount() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    /**
+     * Get number of structures stored on disk
+     */
+    public int getDiskEntryCount() {
+        return listCacheFiles().length;
+    }
+
+    private boolean isEnabled() {
+        return plugin.getConfigManager().isCacheEnabled();
+    }
+
+    private boolean isExpired(long createdAt, long now) {
+        long ttl = TimeUnit.HOURS.toMillis(plugin.getConfigManager().getCacheTtlHours());
+        return ttl > 0 && now - createdAt > ttl;
+    }
+
+    private void putInMemory(String key, CacheEntry entry) {
+        long maxBlocks = plugin.getConfigManager().getCacheMemoryMaxBlocks();
+        if (entry.weight > maxBlocks) {
+            return;
+        }
+
+        synchronized (memory) {
+            removeFromMemory(key);
+            memory.put(key, entry);
+            memoryBlocks += entry.weight;
+
+            // Evict least recently used entries until we are back under the block budget
+            Iterator<Map.Entry<String, CacheEntry>> iterator = memory.entrySet().iterator();
+            while (memoryBlocks > maxBlocks && iterator.hasNext()) {
+                Map.Entry<String, CacheEntry> eldest = iterator.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                memoryBlocks -= eldest.getValue().weight;
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeFromMemory(String key) {
+        CacheEntry removed = memory.remove(key);
+        if (removed != null) {
+            memoryBlocks -= removed.weight;
+        }
+    }
+
+    private File getCacheFile(String key) {
+        return new File(cacheFolder, key + FILE_SUFFIX);
+    }
+
+    private File[] listCacheFiles() {
+        File[] files = cacheFolder.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    private StructureData readFromDisk(File file) {
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8)) {
+            StructureData structure = gson.fromJson(reader, StructureData.class);
+            if (structure != null && structure.getBlocks() != null) {
+                // Cached structures stay in memory, keep them columnar
+                structure.setBlocks(BlockBuffer.copyOf(structure.getBlocks()).asList());
+            }
+            return structure;
+        } catch (Exception e) {
+            plugin.getLogger().warning("Discarding unreadable cache file " + file.getName() + ": " + e.getMessage());
+            deleteFile(file);
+            return null;
+        }
+    }
+
+    /**
+     * Write a structure to the disk tier and prune it, one write at a time
+     */
+    private synchronized void storeOnDisk(String key, StructureData structure) {
+        writeToDisk(getCacheFile(key), structure);
+        pruneDisk();
+    }
+
+    private void writeToDisk(File file, StructureData structure) {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tempFile)), StandardCharsets.UTF_8)) {
+            gson.toJson(structure, writer);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to write structure cache file: " + e.getMessage());
+            deleteFile(tempFile);
+            return;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            deleteFile(file);
+            if (!tempFile.renameTo(file)) {
+                plugin.getLogger().warning("Failed to store structure cache file " + file.getName());
+                deleteFile(tempFile);
+            }
+        }
+    }
+
+    /**
+     * Drop expired files and the oldest files beyond the disk size budget
+     */
+    private synchronized void pruneDisk() {
+        File[] files = listCacheFiles();
+        if (files.length == 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long maxBytes = plugin.getConfigManager().getCacheDiskMaxMegabytes() * 1024L * 1024L;
+        long totalBytes = 0;
+        List<File> remaining = new ArrayList<>();
+
+        for (File file : files) {
+            if (isExpired(file.lastModified(), now)) {
+                deleteFile(file);
+                evictions.incrementAndGet();
+            } else {
+                remaining.add(file);
+                totalBytes += file.length();
+            }
+        }
+
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+
+        remaining.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : remaining) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            totalBytes -= file.length();
+            deleteFile(file);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            plugin.getLogger().fine("Could not delete cache file " + file.getName());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.aibuilder.manager;
+
+import com.aibuilder.AIStructureBuilder;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Method;
+
+/**
+ * Measures server tick timing from a task that runs every tick. TPS comes from the interval between ticks;
+ * MSPT (time the server spends working per tick) is read from Paper's getAverageTickTime when available.
+ */
+public class TickMonitor {
+
+    public static final long TICK_NANOS = 50_000_000L;
+
+    private static final double ALPHA = 0.1;
+
+    private final AIStructureBuilder plugin;
+    private final Method averageTickTime;
+    private BukkitTask task;
+
+    private long tickCount = 0;
+    private long lastTickAt = 0;
+    private long lastIntervalNanos = TICK_NANOS;
+    private double averageIntervalNanos = TICK_NANOS;
+
+    public TickMonitor(AIStructureBuilder plugin) {
+        this.plugin = plugin;
+        this.averageTickTime = findAverageTickTime();
+    }
+
+    /**
+     * Start measuring, must be called on the main thread
+     */
+    public void start() {
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Get number of ticks seen since start, used to tell ticks apart
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Get time between the last two ticks in nanoseconds
+     */
+    public long getLastIntervalNanos() {
+        return lastIntervalNanos;
+    }
+
+    /**
+     * Get ticks per second averaged over roughly the last second, at most 20
+     */
+    public double getTps() {
+        return Math.min(20.0, 1_000_000_000.0 / averageIntervalNanos);
+    }
+
+    /**
+     * Get average milliseconds the server spends per tick, or -1 if the server does not report it
+     */
+    public double getMspt() {
+        if (averageTickTime == null) {
+            return -1;
+        }
+        try {
+            return ((Number) averageTickTime.invoke(Bukkit.getServer())).doubleValue();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        if (lastTickAt != 0) {
+            lastIntervalNanos = now - lastTickAt;
+            averageIntervalNanos += ALPHA * (lastIntervalNanos - averageIntervalNanos);
+        }
+        lastTickAt = now;
+        tickCount++;
+    }
+
+    /**
+     * Paper exposes Server#getAverageTickTime, Spigot has no equivalent
+     */
+    private Method findAverageTickTime() {
+        try {
+            return Bukkit.getServer().getClass().getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.aibuilder.model;
+
+import com.aibuilder.util.VoxelMap;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Columnar block storage: a packed position and a palette id per block, with every distinct material and
+ * data pair stored once. A block costs 10 bytes and no objects, instead of a Block with its own header and
+ * references. Coordinates are limited to the 21 bits VoxelMap packs them into.
+ * asList() adapts the buffer for code working on StructureData.
+ */
+public class BlockBuffer {
+
+    /**
+     * Largest number of distinct material and data pairs, palette ids are stored as unsigned shorts
+     */
+    public static final int MAX_PALETTE_SIZE = 1 << 16;
+
+    private long[] positions;
+    private short[] states;
+    private int size = 0;
+
+    private String[] paletteMaterials = new String[16];
+    private String[] paletteData = new String[16];
+    private int paletteSize = 0;
+    // Open-addressing table of palette ids + 1, 0 marks a free slot
+    private int[] paletteTable = new int[32];
+    // Consecutive blocks usually share a state, and parsers hand over the same String instances
+    private int lastState = -1;
+
+    private BlockList view;
+
+    public BlockBuffer() {
+        this(256);
+    }
+
+    public BlockBuffer(int expectedBlocks) {
+        int capacity = Math.max(16, expectedBlocks);
+        positions = new long[capacity];
+        states = new short[capacity];
+    }
+
+    /**
+     * Copy blocks into a new buffer
+     */
+    public static BlockBuffer copyOf(List<StructureData.Block> blocks) {
+        BlockBuffer source = unwrap(blocks);
+        if (source != null) {
+            return source.copy();
+        }
+
+        BlockBuffer buffer = new BlockBuffer(blocks.size());
+        for (StructureData.Block block : blocks) {
+            buffer.add(block);
+        }
+        return buffer;
+    }
+
+    /**
+     * Get the buffer behind a list returned by asList(), or null for any other list
+     */
+    public static BlockBuffer unwrap(List<StructureData.Block> blocks) {
+        return blocks instanceof BlockList ? ((BlockList) blocks).buffer() : null;
+    }
+
+    /**
+     * Append a block, returning its index
+     */
+    public int add(int x, int y, int z, String material, String data) {
+        if (size == positions.length) {
+            grow();
+        }
+        positions[size] = VoxelMap.pack(x, y, z);
+        states[size] = (short) stateOf(material, data);
+        return size++;
+    }
+
+    /**
+     * Append a block, returning its index
+     */
+    public int add(StructureData.Block block) {
+        return add(block.getX(), block.getY(), block.getZ(), block.getMaterial(), block.getData());
+    }
+
+    /**
+     * Append every block of a list, reading columns directly when it is a buffer view
+     */
+    public void addAll(List<StructureData.Block> blocks) {
+        BlockBuffer source = unwrap(blocks);
+        if (source == null) {
+            for (StructureData.Block block : blocks) {
+                add(block);
+            }
+            return;
+        }
+        for (int i = 0; i < source.size; i++) {
+            int state = source.states[i] & 0xFFFF;
+            if (size == positions.length) {
+                grow();
+            }
+            positions[size] = source.positions[i];
+            states[size++] = (short) stateOf(source.paletteMaterials[state], source.paletteData[state]);
+        }
+    }
+
+    /**
+     * Replace material and data of the block at an index, keeping its position
+     */
+    public void setState(int index, String material, String data) {
+        checkIndex(index);
+        states[index] = (short) stateOf(material, data);
+    }
+
+    /**
+     * Move every block by the offset in place
+     */
+    public void translate(int dx, int dy, int dz) {
+        for (int i = 0; i < size; i++) {
+            long position = positions[i];
+            positions[i] = VoxelMap.pack(VoxelMap.unpackX(position) + dx, VoxelMap.unpackY(position) + dy,
+                VoxelMap.unpackZ(position) + dz);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getX(int index) {
+        checkIndex(index);
+        return VoxelMap.unpackX(positions[index]);
+    }
+
+    public int getY(int index) {
+        checkIndex(index);
+        return VoxelMap.unpackY(positions[index]);
+    }
+
+    public int getZ(int index) {
+        checkIndex(index);
+        return VoxelMap.unpackZ(positions[index]);
+    }
+
+    /**
+     * Get the position at an index packed as by VoxelMap.pack
+     */
+    public long getPosition(int index) {
+        checkIndex(index);
+        return positions[index];
+    }
+
+    public String getMaterial(int index) {
+        checkIndex(index);
+        return paletteMaterials[states[index] & 0xFFFF];
+    }
+
+    public String getData(int index) {
+        checkIndex(index);
+        return paletteData[states[index] & 0xFFFF];
+    }
+
+    /**
+     * Get number of distinct material and data pairs
+     */
+    public int getPaletteSize() {
+        return paletteSize;
+    }
+
+    /**
+     * Get the palette id of the block at an index, blocks with equal material and data share an id
+     */
+    public int getState(int index) {
+        checkIndex(index);
+        return states[index] & 0xFFFF;
+    }
+
+    /**
+     * Get the material of a palette id
+     */
+    public String getPaletteMaterial(int state) {
+        return paletteMaterials[checkState(state)];
+    }
+
+    /**
+     * Get the data of a palette id
+     */
+    public String getPaletteData(int state) {
+        return paletteData[checkState(state)];
+    }
+
+    /**
+     * Create a Block for the entry at an index, changes to it do not write back
+     */
+    public StructureData.Block get(int index) {
+        checkIndex(index);
+        int state = states[index] & 0xFFFF;
+        long position = positions[index];
+        return new StructureData.Block(VoxelMap.unpackX(position), VoxelMap.unpackY(position), VoxelMap.unpackZ(position),
+            paletteMaterials[state], paletteData[state]);
+    }
+
+    /**
+     * Get a read-only list view of the buffer. Blocks are created on access, so the list costs no memory of its own.
+     */
+    public List<StructureData.Block> asList() {
+        if (view == null) {
+            view = new BlockList();
+        }
+        return view;
+    }
+
+    private BlockBuffer copy() {
+        BlockBuffer copy = new BlockBuffer(size);
+        System.arraycopy(positions, 0, copy.positions, 0, size);
+        System.arraycopy(states, 0, copy.states, 0, size);
+        copy.size = size;
+        copy.paletteMaterials = Arrays.copyOf(paletteMaterials, paletteMaterials.length);
+        copy.paletteData = Arrays.copyOf(paletteData, paletteData.length);
+        copy.paletteSize = paletteSize;
+        copy.paletteTable = Arrays.copyOf(paletteTable, paletteTable.length);
+        return copy;
+    }
+
+    private int stateOf(String material, String data) {
+        if (lastState >= 0 && paletteMaterials[lastState] == material && paletteData[lastState] == data) {
+            return lastState;
+        }
+
+        int mask = paletteTable.length - 1;
+        int slot = stateHash(material, data) & mask;
+        for (int entry = paletteTable[slot]; entry != 0; entry = paletteTable[slot]) {
+            int state = entry - 1;
+            if (Objects.equals(paletteMaterials[state], material) && Objects.equals(paletteData[state], data)) {
+                lastState = state;
+                return state;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (paletteSize == MAX_PALETTE_SIZE) {
+            throw new IllegalStateException("Block palette is full (" + MAX_PALETTE_SIZE + " distinct blocks)");
+        }
+        if (paletteSize == paletteMaterials.length) {
+            paletteMaterials = Arrays.copyOf(paletteMaterials, paletteSize * 2);
+            paletteData = Arrays.copyOf(paletteData, paletteSize * 2);
+        }
+        int state = paletteSize++;
+        paletteMaterials[state] = material;
+        paletteData[state] = data;
+        paletteTable[slot] = state + 1;
+        // Keep the table at most half full
+        if (paletteSize * 2 > paletteTable.length) {
+            rehashPalette();
+        }
+        lastState = state;
+        return state;
+    }
+
+    private void rehashPalette() {
+        paletteTable = new int[paletteTable.length * 2];
+        int mask = paletteTable.length - 1;
+        for (int state = 0; state < paletteSize; state++) {
+            int slot = stateHash(paletteMaterials[state], paletteData[state]) & mask;
+            while (paletteTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            paletteTable[slot] = state + 1;
+        }
+    }
+
+    /**
+     * Null data hashes apart from empty data, the two are kept as different states
+     */
+    private static int stateHash(String material, String data) {
+        int hash = Objects.hashCode(material) * 31 + (data == null ? 7 : data.hashCode());
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        int capacity = positions.length + (positions.length >> 1);
+        positions = Arrays.copyOf(positions, capacity);
+        states = Arrays.copyOf(states, capacity);
+    }
+
+    private int checkState(int state) {
+        if (state < 0 || state >= paletteSize) {
+            throw new IndexOutOfBoundsException("State " + state + " out of bounds for palette of " + paletteSize);
+        }
+        return state;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + size + " blocks");
+        }
+    }
+
+    private final class BlockList extends AbstractList<StructureData.Block> implements RandomAccess {
+
+        @Override
+        public StructureData.Block get(int index) {
+            return BlockBuffer.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private BlockBuffer buffer() {
+            return BlockBuffer.this;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.aibuilder.model;
+
+import lombok.Data;
+
+/**
+ * Generated text of a Gemini response together with why generation stopped and how many tokens it used
+ */
+@Data
+public class GeminiResponse {
+    private final String text;
+    private final String finishReason; // STOP, MAX_TOKENS, SAFETY, ... or null if not reported
+    private final int promptTokens; // -1 if usageMetadata was missing
+    private final int outputTokens; // -1 if usageMetadata was missing
+
+    /**
+     * Check if the model ran out of output tokens, i.e. the text is cut off
+     */
+    public boolean isTruncated() {
+        return "MAX_TOKENS".equals(finishReason);
+    }
+}
@@ -0,0 +1,26 @@
+package com.aibuilder.model;
+
+import lombok.Data;
+
+/**
+ * Compact shape instruction generated by AI, expanded locally into blocks.
+ * Coordinates are [x, y, z] arrays; "from" and "to" are inclusive corners in any order.
+ */
+@Data
+public class Primitive {
+    private String type; // fill, hollow, walls, line or block
+    private int[] from;
+    private int[] to;
+    private int[] at; // Position of a single block
+    private String material;
+    private String data;
+
+    public Primitive() {}
+
+    public Primitive(String type, int[] from, int[] to, String material) {
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.material = material;
+    }
+}
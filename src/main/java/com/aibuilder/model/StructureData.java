@@ -13,6 +13,8 @@ public class StructureData {
     private String description;
     private Size size;
     private List<Block> blocks;
+    private List<Primitive> primitives; // Shapes to expand into blocks, cleared once expanded
+    private transient boolean fallback; // Generated locally because the AI response was unusable
 
     @Data
     public static class Size {
@@ -0,0 +1,111 @@
+package com.aibuilder.processor;
+
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.StructureData;
+import com.aibuilder.util.VoxelMap;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Merges blocks into one block per position. The block added last wins, optionally except that
+ * AIR never replaces a solid block, so empty space padding one chunk cannot erase the wall of its neighbour.
+ * Merged blocks are stored in a BlockBuffer, so merging keeps no Block objects alive.
+ */
+public class BlockMerger {
+
+    private final boolean keepSolidOverAir;
+    private final VoxelMap index;
+    private final BlockBuffer blocks;
+    private int duplicateCount = 0;
+
+    public BlockMerger(boolean keepSolidOverAir) {
+        this(keepSolidOverAir, 1024);
+    }
+
+    public BlockMerger(boolean keepSolidOverAir, int expectedBlocks) {
+        this.keepSolidOverAir = keepSolidOverAir;
+        this.index = new VoxelMap(expectedBlocks);
+        this.blocks = new BlockBuffer(expectedBlocks);
+    }
+
+    /**
+     * Add a block, returning true if it changed the merged result
+     */
+    public boolean add(StructureData.Block block) {
+        return add(block.getX(), block.getY(), block.getZ(), block.getMaterial(), block.getData());
+    }
+
+    /**
+     * Add a block given by its values, returning true if it changed the merged result
+     */
+    public boolean add(int x, int y, int z, String material, String data) {
+        long key = VoxelMap.pack(x, y, z);
+        int slot = index.get(key);
+        if (slot == VoxelMap.NONE) {
+            index.put(key, blocks.add(x, y, z, material, data));
+            return true;
+        }
+
+        duplicateCount++;
+        String existing = blocks.getMaterial(slot);
+        if (keepSolidOverAir && isAir(material) && !isAir(existing)) {
+            return false;
+        }
+        if (Objects.equals(existing, material) && Objects.equals(blocks.getData(slot), data)) {
+            return false;
+        }
+        // Replace in place, the position keeps its original order
+        blocks.setState(slot, material, data);
+        return true;
+    }
+
+    /**
+     * Check if a block was added at the position
+     */
+    public boolean contains(int x, int y, int z) {
+        return index.get(VoxelMap.pack(x, y, z)) != VoxelMap.NONE;
+    }
+
+    /**
+     * Add every block of a list, reading columns directly when it is a buffer view
+     */
+    public void addAll(List<StructureData.Block> toAdd) {
+        BlockBuffer source = BlockBuffer.unwrap(toAdd);
+        if (source == null) {
+            for (StructureData.Block block : toAdd) {
+                add(block);
+            }
+            return;
+        }
+        for (int i = 0; i < source.size(); i++) {
+            add(source.getX(i), source.getY(i), source.getZ(i), source.getMaterial(i), source.getData(i));
+        }
+    }
+
+    /**
+     * Get one block per position, in the order positions were first seen, as a view of the buffer
+     */
+    public List<StructureData.Block> getBlocks() {
+        return blocks.asList();
+    }
+
+    /**
+     * Get the merged blocks in columnar form
+     */
+    public BlockBuffer getBuffer() {
+        return blocks;
+    }
+
+    /**
+     * Get number of blocks that landed on an already occupied position
+     */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    private boolean isAir(String material) {
+        return material == null || material.equalsIgnoreCase("AIR") || material.equalsIgnoreCase("CAVE_AIR") ||
+            material.equalsIgnoreCase("VOID_AIR");
+    }
+}
@@ -0,0 +1,10 @@
+package com.aibuilder.processor;
+
+/**
+ * Receives blocks as plain values, so producers can fill a BlockBuffer without creating Block objects
+ */
+@FunctionalInterface
+public interface BlockSink {
+
+    void accept(int x, int y, int z, String material, String data);
+}
@@ -0,0 +1,153 @@
+package com.aibuilder.processor;
+
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.StructureData;
+import com.aibuilder.util.VoxelMap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Merges the chunks of a large structure as they arrive and hands on the blocks to place, without keeping the
+ * whole structure. Every position is placed once: the inside of a chunk goes out right away, while the one block
+ * wide seam around it and anything a chunk puts outside its own cell are held back until the chunks of every
+ * cell next to it have arrived, and then placed as merged. A cell is forgotten at that point, since a chunk
+ * only overlaps the cells around its own.
+ */
+public class ChunkStreamMerger {
+
+    private final int chunkSize;
+    private final int chunksPerSide;
+    private final boolean[] arrived;
+    private final Map<Long, Cell> openCells = new HashMap<>();
+    private final Set<Long> closedCells = new HashSet<>();
+    private int duplicateCount = 0;
+    private int skippedCount = 0;
+
+    /**
+     * Blocks of one cell that are placed already or still held back
+     */
+    private class Cell {
+        private final VoxelMap placed = new VoxelMap(chunkSize * chunkSize);
+        private final BlockMerger held = new BlockMerger(true, chunkSize * 4);
+    }
+
+    public ChunkStreamMerger(int chunkSize, int chunksPerSide) {
+        this.chunkSize = chunkSize;
+        this.chunksPerSide = chunksPerSide;
+        this.arrived = new boolean[chunksPerSide * chunksPerSide];
+    }
+
+    /**
+     * Add the blocks of a chunk, passing the blocks that are final to the placer
+     */
+    public void addChunk(int chunkX, int chunkZ, List<StructureData.Block> blocks, Consumer<StructureData.Block> placer) {
+        // Merge the chunk with itself first, so it resolves its own overlaps like the non-streamed merge
+        BlockMerger chunkMerger = new BlockMerger(true, blocks.size());
+        chunkMerger.addAll(blocks);
+        duplicateCount += chunkMerger.getDuplicateCount();
+        BlockBuffer merged = chunkMerger.getBuffer();
+
+        for (int i = 0; i < merged.size(); i++) {
+            int x = merged.getX(i);
+            int y = merged.getY(i);
+            int z = merged.getZ(i);
+            int cellX = Math.floorDiv(x, chunkSize);
+            int cellZ = Math.floorDiv(z, chunkSize);
+            long key = cellKey(cellX, cellZ);
+            if (closedCells.contains(key)) {
+                // Strayed further than the next cell, that part of the structure is placed already
+                skippedCount++;
+                continue;
+            }
+
+            Cell cell = openCells.computeIfAbsent(key, ignored -> new Cell());
+            long position = VoxelMap.pack(x, y, z);
+            if (cell.placed.get(position) != VoxelMap.NONE) {
+                // Placed blocks can't be taken back, the first one stays
+                duplicateCount++;
+            } else if (cellX == chunkX && cellZ == chunkZ && isInside(x - cellX * chunkSize, z - cellZ * chunkSize) &&
+                !cell.held.contains(x, y, z)) {
+                cell.placed.put(position, 0);
+                placer.accept(merged.get(i));
+            } else {
+                cell.held.add(x, y, z, merged.getMaterial(i), merged.getData(i));
+            }
+        }
+
+        arrived[chunkZ * chunksPerSide + chunkX] = true;
+        closeSettledCells(placer);
+    }
+
+    /**
+     * Get number of blocks that landed on an already occupied position
+     */
+    public int getDuplicateCount() {
+        int count = duplicateCount;
+        for (Cell cell : openCells.values()) {
+            count += cell.held.getDuplicateCount();
+        }
+        return count;
+    }
+
+    /**
+     * Get number of blocks dropped because they landed in a part of the structure that was placed already
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Get number of cells still kept for merging
+     */
+    public int getOpenCellCount() {
+        return openCells.size();
+    }
+
+    private void closeSettledCells(Consumer<StructureData.Block> placer) {
+        Iterator<Map.Entry<Long, Cell>> iterator = openCells.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Cell> entry = iterator.next();
+            long key = entry.getKey();
+            if (isSettled((int) (key >> 32), (int) key)) {
+                BlockMerger held = entry.getValue().held;
+                for (StructureData.Block block : held.getBlocks()) {
+                    placer.accept(block);
+                }
+                duplicateCount += held.getDuplicateCount();
+                closedCells.add(key);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Check if a chunk-local position is off the seam any neighbouring chunk can reach
+     */
+    private boolean isInside(int localX, int localZ) {
+        return localX >= 1 && localX < chunkSize - 1 && localZ >= 1 && localZ < chunkSize - 1;
+    }
+
+    /**
+     * Check if no chunk that can still arrive overlaps the cell
+     */
+    private boolean isSettled(int cellX, int cellZ) {
+        for (int x = cellX - 1; x <= cellX + 1; x++) {
+            for (int z = cellZ - 1; z <= cellZ + 1; z++) {
+                if (x >= 0 && x < chunksPerSide && z >= 0 && z < chunksPerSide && !arrived[z * chunksPerSide + x]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
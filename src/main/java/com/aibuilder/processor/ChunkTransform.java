@@ -0,0 +1,111 @@
+package com.aibuilder.processor;
+
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.StructureData;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rotates and mirrors chunk-local blocks around the vertical axis, so a reused chunk template
+ * does not look identical everywhere it is placed. Horizontal facing and axis block states are turned with the blocks.
+ */
+public class ChunkTransform {
+
+    /**
+     * Number of distinct variants: four quarter turns, each optionally mirrored
+     */
+    public static final int VARIANTS = 8;
+
+    private static final String[] FACINGS = {"north", "east", "south", "west"};
+    private static final Pattern FACING = Pattern.compile("facing=(north|east|south|west)");
+    private static final Pattern AXIS = Pattern.compile("axis=([xz])");
+
+    private final int quarterTurns;
+    private final boolean mirrored;
+
+    /**
+     * Create the transform for a variant in [0, VARIANTS), variant 0 leaves blocks unchanged
+     */
+    public ChunkTransform(int variant) {
+        int normalized = Math.floorMod(variant, VARIANTS);
+        this.quarterTurns = normalized % 4;
+        this.mirrored = normalized >= 4;
+    }
+
+    /**
+     * Check if this transform leaves blocks unchanged
+     */
+    public boolean isIdentity() {
+        return quarterTurns == 0 && !mirrored;
+    }
+
+    /**
+     * Transform blocks inside a chunk of the given size, returning new blocks
+     */
+    public List<StructureData.Block> apply(List<StructureData.Block> blocks, int chunkSize) {
+        return apply(blocks, chunkSize, 0, 0);
+    }
+
+    /**
+     * Transform blocks inside a chunk of the given size and move them by the offset, returning new blocks
+     */
+    public List<StructureData.Block> apply(List<StructureData.Block> blocks, int chunkSize, int offsetX, int offsetZ) {
+        BlockBuffer source = BlockBuffer.unwrap(blocks);
+        if (source == null) {
+            source = BlockBuffer.copyOf(blocks);
+        }
+        BlockBuffer transformed = new BlockBuffer(source.size());
+        int max = chunkSize - 1;
+
+        for (int i = 0; i < source.size(); i++) {
+            int x = source.getX(i);
+            int z = source.getZ(i);
+            if (mirrored) {
+                x = max - x;
+            }
+            // Clockwise seen from above: north becomes east
+            for (int turn = 0; turn < quarterTurns; turn++) {
+                int rotatedX = max - z;
+                z = x;
+                x = rotatedX;
+            }
+            transformed.add(x + offsetX, source.getY(i), z + offsetZ, source.getMaterial(i), transformData(source.getData(i)));
+        }
+        return transformed.asList();
+    }
+
+    private String transformData(String data) {
+        if (data == null || data.isEmpty() || isIdentity()) {
+            return data;
+        }
+
+        String result = data;
+        Matcher facing = FACING.matcher(result);
+        if (facing.find()) {
+            int index = indexOf(facing.group(1));
+            if (mirrored && (index == 1 || index == 3)) {
+                index = 4 - index;
+            }
+            index = (index + quarterTurns) % 4;
+            result = result.substring(0, facing.start(1)) + FACINGS[index] + result.substring(facing.end(1));
+        }
+
+        Matcher axis = AXIS.matcher(result);
+        if (quarterTurns % 2 == 1 && axis.find()) {
+            String swapped = axis.group(1).equals("x") ? "z" : "x";
+            result = result.substring(0, axis.start(1)) + swapped + result.substring(axis.end(1));
+        }
+        return result;
+    }
+
+    private int indexOf(String facing) {
+        for (int i = 0; i < FACINGS.length; i++) {
+            if (FACINGS[i].equals(facing)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
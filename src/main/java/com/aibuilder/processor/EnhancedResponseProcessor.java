@@ -2,524 +2,75 @@ package com.aibuilder.processor;
 
 import com.aibuilder.AIStructureBuilder;
 import com.aibuilder.model.StructureData;
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.core.JsonParser.Feature;
-import com.google.gson.Gson;
-import lombok.RequiredArgsConstructor;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.logging.Logger;
 
 /**
  * Enhanced AI response processor with robust JSON handling and fallback strategies
  */
-@RequiredArgsConstructor
-public class EnhancedResponseProcessor {    private final AIStructureBuilder plugin;
-    private final Gson gson = new Gson();
-    private final JsonFactory jsonFactory;
+public class EnhancedResponseProcessor {    private final Logger logger;
     
     public EnhancedResponseProcessor(AIStructureBuilder plugin) {
-        this.plugin = plugin;
-        this.jsonFactory = new JsonFactory();
-        // Enable comments in JSON parsing
-        this.jsonFactory.enable(JsonParser.Feature.ALLOW_COMMENTS);
-        this.jsonFactory.enable(JsonParser.Feature.ALLOW_YAML_COMMENTS);
-    }/**
-     * Process AI response with multiple parsing strategies
-     */
-    public StructureData processResponse(String response, String originalPrompt) {
-        plugin.getLogger().info("Processing AI response (" + response.length() + " characters)");
-        
-        // Check if response looks truncated
-        if (isTruncatedResponse(response)) {
-            plugin.getLogger().warning("Response appears to be truncated, will attempt repair");
-        }
-        
-        // Strategy 1: Direct JSON parsing
-        try {
-            StructureData result = parseDirectJson(response);
-            if (result != null && isValidStructure(result)) {
-                plugin.getLogger().info("Successfully parsed using direct JSON strategy");
-                return result;
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Direct JSON parsing failed: " + e.getMessage());
-        }
-
-        // Strategy 2: Extract JSON from markdown/text
-        try {
-            StructureData result = parseExtractedJson(response);
-            if (result != null && isValidStructure(result)) {
-                plugin.getLogger().info("Successfully parsed using JSON extraction strategy");
-                return result;
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("JSON extraction parsing failed: " + e.getMessage());
-        }
-        
-        // Strategy 3: Streaming JSON parser for large responses
-        try {
-            StructureData result = parseStreamingJson(response);
-            if (result != null && isValidStructure(result)) {
-                plugin.getLogger().info("Successfully parsed using streaming JSON strategy");
-                return result;
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Streaming JSON parsing failed: " + e.getMessage());
-        }
-        
-        // Strategy 4: Repair and retry
-        try {
-            StructureData result = parseRepairedJson(response);
-            if (result != null && isValidStructure(result)) {
-                plugin.getLogger().info("Successfully parsed using JSON repair strategy");
-                return result;
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("JSON repair parsing failed: " + e.getMessage());
-        }
-        
-        // Strategy 5: Generate fallback structure
-        plugin.getLogger().warning("All parsing strategies failed, generating fallback structure");
-        return generateFallbackStructure(originalPrompt);
+        this(plugin.getLogger());
     }
     
     /**
-     * Check if the response appears to be truncated
-     */
-    private boolean isTruncatedResponse(String response) {
-        if (response == null || response.length() < 100) {
-            return true;
-        }
-        
-        String cleaned = cleanResponse(response);
-        
-        // Check for common signs of truncation
-        return cleaned.endsWith(",") || // Ends with comma
-               cleaned.matches(".*\"[^\"]*$") || // Ends with unterminated string
-               (cleaned.contains("blocks") && cleaned.contains("[") && !cleaned.contains("]")) || // Blocks array not closed
-               countChar(cleaned, '{') > countChar(cleaned, '}') || // Unmatched braces
-               countChar(cleaned, '[') > countChar(cleaned, ']'); // Unmatched brackets
-    }
-
-    /**
-     * Parse JSON directly
-     */
-    private StructureData parseDirectJson(String response) {
-        String cleaned = cleanResponse(response);
-        return gson.fromJson(cleaned, StructureData.class);
-    }
-
-    /**
-     * Extract and parse JSON from markdown or mixed content
+     * Create a processor logging to the given logger, e.g. outside a running server
      */
-    private StructureData parseExtractedJson(String response) {
-        String jsonContent = extractJsonFromResponse(response);
-        if (jsonContent != null) {
-            return gson.fromJson(jsonContent, StructureData.class);
-        }
-        return null;
-    }    /**
-     * Use streaming JSON parser for large responses
-     */
-    private StructureData parseStreamingJson(String response) throws Exception {
-        String cleaned = cleanResponse(response);
-        JsonParser parser = jsonFactory.createParser(cleaned);
-        
-        String name = null;
-        String description = null;
-        StructureData.Size size = null;
-        List<StructureData.Block> blocks = new ArrayList<>();
-        
-        try {
-            while (parser.nextToken() != null && parser.getCurrentToken() != JsonToken.END_OBJECT) {
-                String fieldName = parser.getCurrentName();
-                
-                if ("name".equals(fieldName)) {
-                    parser.nextToken();
-                    name = parser.getValueAsString();
-                } else if ("description".equals(fieldName)) {
-                    parser.nextToken();
-                    description = parser.getValueAsString();
-                } else if ("size".equals(fieldName)) {
-                    parser.nextToken();
-                    size = parseSize(parser);
-                } else if ("blocks".equals(fieldName)) {
-                    parser.nextToken();
-                    blocks = parseBlocksArraySafely(parser);
-                }
-            }
-        } catch (Exception e) {
-            // If parsing fails partway through, we might still have some useful data
-            plugin.getLogger().warning("Streaming parser encountered error: " + e.getMessage() + 
-                                     ", attempting to use partial data");
-        } finally {
-            parser.close();
-        }
-        
-        // Even if parsing failed, try to create a structure with what we have
-        if (name != null && blocks != null && !blocks.isEmpty()) {
-            StructureData result = new StructureData();
-            result.setName(name);
-            result.setDescription(description != null ? description : "AI Generated Structure");
-            result.setSize(size != null ? size : calculateSize(blocks));
-            result.setBlocks(blocks);
-            
-            plugin.getLogger().info("Streaming parser recovered " + blocks.size() + " blocks");
-            return result;
-        }
-        
-        return null;
-    }
-    
-    /**
-     * Parse blocks array with error recovery
+    public EnhancedResponseProcessor(Logger logger) {
+        this.logger = logger;
+    }/**
+     * Process AI response in a single tolerant pass, falling back to a generated structure if nothing usable is found
      */
-    private List<StructureData.Block> parseBlocksArraySafely(JsonParser parser) throws Exception {
-        List<StructureData.Block> blocks = new ArrayList<>();
+    public StructureData processResponse(String response, String originalPrompt) {
+        logger.info("Processing AI response (" + response.length() + " characters)");
         
-        try {
-            while (parser.nextToken() != JsonToken.END_ARRAY) {
-                if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
-                    try {
-                        StructureData.Block block = parseBlockObject(parser);
-                        if (block != null && block.getMaterial() != null) {
-                            blocks.add(block);
-                        }
-                    } catch (Exception e) {
-                        // Skip this block and continue with the next one
-                        plugin.getLogger().fine("Skipped malformed block: " + e.getMessage());
-                        skipToNextObject(parser);
-                    }
-                }
+        TolerantStructureParser parser = new TolerantStructureParser();
+        StructureData result = parser.parse(response);
+        if (result != null && isValidStructure(result)) {
+            if (result.getName() == null) {
+                result.setName("AI Generated Structure");
             }
-        } catch (Exception e) {
-            // Array might be truncated, return what we have
-            plugin.getLogger().warning("Blocks array parsing incomplete: " + e.getMessage() + 
-                                     ", recovered " + blocks.size() + " blocks");
-        }
-        
-        return blocks;
-    }
-    
-    /**
-     * Parse a single block object
-     */
-    private StructureData.Block parseBlockObject(JsonParser parser) throws Exception {
-        StructureData.Block block = new StructureData.Block();
-        
-        while (parser.nextToken() != JsonToken.END_OBJECT) {
-            String fieldName = parser.getCurrentName();
-            parser.nextToken();
-            
-            switch (fieldName) {
-                case "x" -> block.setX(parser.getValueAsInt());
-                case "y" -> block.setY(parser.getValueAsInt());
-                case "z" -> block.setZ(parser.getValueAsInt());
-                case "material" -> block.setMaterial(parser.getValueAsString());
-                case "data" -> block.setData(parser.getValueAsString());
+            if (result.getSize() == null) {
+                result.setSize(calculateSize(result.getBlocks()));
             }
+            logger.info("Parsed " + result.getBlocks().size() + " blocks" +
+                (parser.getPrimitiveCount() > 0 ? " from " + parser.getPrimitiveCount() + " primitives" : "") +
+                (parser.isTruncated() ? ", response was cut off and only its complete part was used" : "") +
+                (parser.getSkippedCount() > 0 ? " (" + parser.getSkippedCount() + " malformed elements skipped)" : ""));
+            return result;
         }
         
-        return block;
+        logger.warning("No usable structure found in the response, generating fallback structure");
+        return generateFallbackStructure(originalPrompt);
     }
     
-    /**
-     * Skip to the next object when parsing fails
-     */
-    private void skipToNextObject(JsonParser parser) throws Exception {
-        int depth = 0;
-        do {
-            JsonToken token = parser.nextToken();
-            if (token == JsonToken.START_OBJECT) {
-                depth++;
-            } else if (token == JsonToken.END_OBJECT) {
-                depth--;
-            }
-        } while (depth > 0 && parser.getCurrentToken() != null);
-    }
-
-    /**
-     * Attempt to repair malformed JSON
-     */
-    private StructureData parseRepairedJson(String response) {
-        String cleaned = cleanResponse(response);
-        String repaired = repairJson(cleaned);
-        
-        if (!repaired.equals(cleaned)) {
-            plugin.getLogger().info("Attempting to parse repaired JSON");
-            return gson.fromJson(repaired, StructureData.class);
-        }
-        
-        return null;
-    }
-
     /**
      * Generate a fallback structure when parsing fails
      */
     private StructureData generateFallbackStructure(String originalPrompt) {
-        plugin.getLogger().info("Generating algorithmic fallback structure for: " + originalPrompt);
+        logger.info("Generating algorithmic fallback structure for: " + originalPrompt);
         
         // Determine structure type and generate appropriate fallback
         String lowerPrompt = originalPrompt.toLowerCase();
+        StructureData fallback;
         
         if (lowerPrompt.contains("castle")) {
-            return generateCastleFallback();
+            fallback = generateCastleFallback();
         } else if (lowerPrompt.contains("house")) {
-            return generateHouseFallback();
+            fallback = generateHouseFallback();
         } else if (lowerPrompt.contains("tower")) {
-            return generateTowerFallback();
+            fallback = generateTowerFallback();
         } else if (lowerPrompt.contains("bridge")) {
-            return generateBridgeFallback();
+            fallback = generateBridgeFallback();
         } else {
-            return generateGenericFallback();
+            fallback = generateGenericFallback();
         }
-    }    /**
-     * Clean response from markdown and other formatting
-     */
-    private String cleanResponse(String response) {
-        if (response == null) return "{}";
-        
-        String cleaned = response.trim();
-        
-        // Remove markdown code blocks
-        cleaned = cleaned.replaceAll("```json\\s*", "");
-        cleaned = cleaned.replaceAll("```\\s*$", "");
-        
-        // Remove comments (// style comments) - line by line to preserve structure
-        String[] lines = cleaned.split("\n");
-        StringBuilder result = new StringBuilder();
-        
-        for (String line : lines) {
-            // Find // comments but not inside strings
-            int commentStart = findCommentStart(line);
-            if (commentStart >= 0) {
-                line = line.substring(0, commentStart).trim();
-            }
-            
-            // Only add non-empty lines
-            if (!line.trim().isEmpty()) {
-                result.append(line).append("\n");
-            }
-        }
-        
-        cleaned = result.toString();
-        
-        // Remove any text before the first {
-        int firstBrace = cleaned.indexOf('{');
-        if (firstBrace > 0) {
-            cleaned = cleaned.substring(firstBrace);
-        }
-        
-        // Remove any text after the last }
-        int lastBrace = cleaned.lastIndexOf('}');
-        if (lastBrace >= 0 && lastBrace < cleaned.length() - 1) {
-            cleaned = cleaned.substring(0, lastBrace + 1);
-        }
-        
-        return cleaned;
-    }
-    
-    /**
-     * Find the start of a comment, being careful not to find // inside strings
-     */
-    private int findCommentStart(String line) {
-        boolean inString = false;
-        boolean escapeNext = false;
-        
-        for (int i = 0; i < line.length() - 1; i++) {
-            char c = line.charAt(i);
-            char next = line.charAt(i + 1);
-            
-            if (escapeNext) {
-                escapeNext = false;
-                continue;
-            }
-            
-            if (c == '\\') {
-                escapeNext = true;
-                continue;
-            }
-            
-            if (c == '"') {
-                inString = !inString;
-                continue;
-            }
-            
-            if (!inString && c == '/' && next == '/') {
-                return i;
-            }
-        }
-        
-        return -1;
-    }
-
-    /**
-     * Extract JSON content using regex patterns
-     */
-    private String extractJsonFromResponse(String response) {
-        // Pattern to match JSON object
-        Pattern jsonPattern = Pattern.compile("\\{[^{}]*(?:\\{[^{}]*\\}[^{}]*)*\\}", Pattern.DOTALL);
-        Matcher matcher = jsonPattern.matcher(response);
-        
-        if (matcher.find()) {
-            return matcher.group();
-        }
-        
-        return null;
-    }    /**
-     * Repair common JSON issues
-     */
-    private String repairJson(String json) {
-        if (json == null) return "{}";
-        
-        String original = json;
-        
-        // Remove any incomplete elements at the end that might cause parsing issues
-        json = removeIncompleteElements(json);
-        
-        // Fix trailing commas
-        json = json.replaceAll(",\\s*([}\\]])", "$1");
-        
-        // Fix unescaped quotes in strings
-        json = json.replaceAll("(?<!\\\\)\"([^\"]*?)(?<!\\\\)\"([^\":,}\\]]*?)\"", "\"$1\\\\\"$2\"");
-        
-        // Fix unterminated strings by adding closing quote if needed
-        if (json.contains("\"") && !isBalancedQuotes(json)) {
-            // Find the last unmatched quote and close it
-            int lastQuote = json.lastIndexOf('"');
-            if (lastQuote > 0) {
-                String beforeQuote = json.substring(0, lastQuote);
-                if (!isBalancedQuotes(beforeQuote)) {
-                    json = json + "\"";
-                }
-            }
-        }
-        
-        // Ensure proper closure of arrays and objects
-        while (countChar(json, '{') > countChar(json, '}')) {
-            json += "}";
-        }
-        
-        while (countChar(json, '[') > countChar(json, ']')) {
-            json += "]";
-        }
-        
-        // If the repair significantly changed the JSON, log it
-        if (json.length() != original.length()) {
-            plugin.getLogger().info("Repaired JSON: removed " + (original.length() - json.length()) + " characters");
-        }
-        
-        return json;
-    }
-    
-    /**
-     * Remove incomplete JSON elements that could cause parsing failures
-     */
-    private String removeIncompleteElements(String json) {
-        // Look for common patterns of incomplete elements
-        
-        // Remove incomplete objects that don't have closing braces
-        json = json.replaceAll(",\\s*\\{[^}]*$", "");
-        
-        // Remove incomplete array elements
-        json = json.replaceAll(",\\s*\\[[^\\]]*$", "");
-        
-        // Remove incomplete strings at the end
-        json = json.replaceAll(",\\s*\"[^\"]*$", "");
-        
-        // Remove incomplete property assignments
-        json = json.replaceAll(",\\s*\"[^\"]*\"\\s*:\\s*[^,}\\]]*$", "");
-        
-        // Handle blocks array specifically - if it's incomplete, close it properly
-        if (json.contains("\"blocks\"") && json.contains("[")) {
-            int blocksStart = json.indexOf("\"blocks\"");
-            int arrayStart = json.indexOf("[", blocksStart);
-            if (arrayStart > 0) {
-                // Count braces and brackets from the blocks array start
-                String fromArray = json.substring(arrayStart);
-                int openBrackets = countChar(fromArray, '[');
-                int closeBrackets = countChar(fromArray, ']');
-                int openBraces = countChar(fromArray, '{');
-                int closeBraces = countChar(fromArray, '}');
-                
-                // If we have unmatched elements, try to find a safe truncation point
-                if (openBrackets > closeBrackets || openBraces > closeBraces) {
-                    // Find the last complete block object
-                    int lastCompleteBlock = findLastCompleteBlockIndex(json, arrayStart);
-                    if (lastCompleteBlock > arrayStart) {
-                        json = json.substring(0, lastCompleteBlock) + "]";
-                        // Add closing brace for the main object if needed
-                        if (countChar(json, '{') > countChar(json, '}')) {
-                            json += "}";
-                        }
-                    }
-                }
-            }
-        }
-        
-        return json;
+        fallback.setFallback(true);
+        return fallback;
     }
-    
-    /**
-     * Find the index of the last complete block object in the blocks array
-     */
-    private int findLastCompleteBlockIndex(String json, int arrayStart) {
-        int lastGoodIndex = arrayStart + 1; // Start after the opening bracket
-        int braceCount = 0;
-        boolean inString = false;
-        boolean escaped = false;
-        
-        for (int i = arrayStart + 1; i < json.length(); i++) {
-            char c = json.charAt(i);
-            
-            if (escaped) {
-                escaped = false;
-                continue;
-            }
-            
-            if (c == '\\') {
-                escaped = true;
-                continue;
-            }
-            
-            if (c == '"') {
-                inString = !inString;
-                continue;
-            }
-            
-            if (!inString) {
-                if (c == '{') {
-                    braceCount++;
-                } else if (c == '}') {
-                    braceCount--;
-                    if (braceCount == 0) {
-                        // We found a complete block object
-                        lastGoodIndex = i + 1;
-                    }
-                }
-            }
-        }
-        
-        return lastGoodIndex;
-    }// Helper methods for parsing and generation
-    private StructureData.Size parseSize(JsonParser parser) throws Exception {
-        StructureData.Size size = new StructureData.Size();
-        while (parser.nextToken() != JsonToken.END_OBJECT) {
-            String fieldName = parser.getCurrentName();
-            parser.nextToken();
-            
-            switch (fieldName) {
-                case "width" -> size.setWidth(parser.getValueAsInt());
-                case "height" -> size.setHeight(parser.getValueAsInt());
-                case "depth" -> size.setDepth(parser.getValueAsInt());
-            }
-        }
-        return size;    }
 
     private boolean isValidStructure(StructureData structure) {
         return structure != null && 
@@ -528,25 +79,7 @@ public class EnhancedResponseProcessor {    private final AIStructureBuilder plu
                structure.getBlocks().size() > 10; // Minimum reasonable size
     }
 
-    private boolean isBalancedQuotes(String str) {
-        int count = 0;
-        boolean escaped = false;
-        for (char c : str.toCharArray()) {
-            if (c == '\\' && !escaped) {
-                escaped = true;
-                continue;
-            }
-            if (c == '"' && !escaped) {
-                count++;
-            }
-            escaped = false;
-        }
-        return count % 2 == 0;
-    }
-
-    private int countChar(String str, char c) {
-        return (int) str.chars().filter(ch -> ch == c).count();
-    }    private StructureData.Size calculateSize(List<StructureData.Block> blocks) {
+    private StructureData.Size calculateSize(List<StructureData.Block> blocks) {
         if (blocks.isEmpty()) {
             StructureData.Size size = new StructureData.Size();
             size.setWidth(1);
@@ -0,0 +1,195 @@
+package com.aibuilder.processor;
+
+import com.aibuilder.model.Primitive;
+import com.aibuilder.model.StructureData;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Expands shape primitives (fill, hollow, walls, line, block) into individual blocks.
+ * Primitives are applied in order, so a later primitive overrides earlier ones at the same position,
+ * e.g. a single AIR block cutting a doorway into a wall.
+ */
+public class PrimitiveExpander {
+
+    /**
+     * Same hard limit the build manager applies to a single build
+     */
+    public static final int DEFAULT_MAX_BLOCKS = 50000;
+
+    /**
+     * Prompt text describing the primitive types, shared by every prompt that asks for primitives
+     */
+    public static final String FORMAT_INSTRUCTIONS =
+        "Describe the structure with shape primitives instead of single blocks. Each primitive is an object in the \"primitives\" array:\n" +
+        "- {\"type\": \"fill\", \"from\": [x,y,z], \"to\": [x,y,z], \"material\": \"STONE\"} solid cuboid (floors, foundations, solid walls)\n" +
+        "- {\"type\": \"hollow\", \"from\": [x,y,z], \"to\": [x,y,z], \"material\": \"OAK_PLANKS\"} box shell with floor, ceiling and four sides\n" +
+        "- {\"type\": \"walls\", \"from\": [x,y,z], \"to\": [x,y,z], \"material\": \"STONE_BRICKS\"} four vertical sides only, open top and bottom\n" +
+        "- {\"type\": \"line\", \"from\": [x,y,z], \"to\": [x,y,z], \"material\": \"OAK_LOG\"} straight or diagonal line (pillars, beams, railings)\n" +
+        "- {\"type\": \"block\", \"at\": [x,y,z], \"material\": \"OAK_DOOR\"} single block (doors, torches, details)\n" +
+        "Corners are inclusive. Primitives are applied in order and later ones replace earlier blocks, " +
+        "so cut windows and doorways with later \"fill\" or \"block\" primitives (use GLASS_PANE or AIR).\n" +
+        "An optional \"data\" string holds block states, for example \"facing=north,half=bottom\" for stairs, " +
+        "\"type=top\" for slabs, \"facing=east,half=lower\" for doors or \"axis=x\" for logs.\n";
+
+    private final int maxBlocks;
+    private int expandedCount = 0;
+    private int skippedCount = 0;
+
+    public PrimitiveExpander() {
+        this(DEFAULT_MAX_BLOCKS);
+    }
+
+    public PrimitiveExpander(int maxBlocks) {
+        this.maxBlocks = maxBlocks;
+    }
+
+    /**
+     * Expand a structure's primitives into its block list in place.
+     * Explicit blocks are applied after the primitives, so they act as overrides.
+     */
+    public void expandInto(StructureData structure) {
+        if (structure == null || structure.getPrimitives() == null || structure.getPrimitives().isEmpty()) {
+            return;
+        }
+
+        // Within one structure AIR is a deliberate cut, so plain last-writer-wins
+        BlockMerger merged = new BlockMerger(false);
+        for (Primitive primitive : structure.getPrimitives()) {
+            expandTo(primitive, merged::add);
+        }
+        if (structure.getBlocks() != null) {
+            for (StructureData.Block block : structure.getBlocks()) {
+                if (block != null && block.getMaterial() != null) {
+                    merged.add(block);
+                }
+            }
+        }
+
+        structure.setBlocks(merged.getBlocks());
+        structure.setPrimitives(null);
+    }
+
+    /**
+     * Expand a list of primitives, later primitives replacing earlier blocks at the same position
+     */
+    public List<StructureData.Block> expand(List<Primitive> primitives) {
+        BlockMerger merged = new BlockMerger(false);
+        for (Primitive primitive : primitives) {
+            expandTo(primitive, merged::add);
+        }
+        return merged.getBlocks();
+    }
+
+    /**
+     * Expand a single primitive, handing each block to the consumer
+     */
+    public void expand(Primitive primitive, Consumer<StructureData.Block> consumer) {
+        expandTo(primitive, (x, y, z, material, data) -> consumer.accept(new StructureData.Block(x, y, z, material, data)));
+    }
+
+    /**
+     * Expand a single primitive, handing each block's values to the sink
+     */
+    public void expandTo(Primitive primitive, BlockSink consumer) {
+        if (primitive == null || primitive.getMaterial() == null || primitive.getType() == null) {
+            skippedCount++;
+            return;
+        }
+
+        String type = primitive.getType().toLowerCase(Locale.ROOT);
+        if (type.equals("block")) {
+            int[] at = primitive.getAt() != null ? primitive.getAt() : primitive.getFrom();
+            if (!isPoint(at)) {
+                skippedCount++;
+                return;
+            }
+            emit(at[0], at[1], at[2], primitive, consumer);
+            return;
+        }
+
+        if (!isPoint(primitive.getFrom()) || !isPoint(primitive.getTo())) {
+            skippedCount++;
+            return;
+        }
+        int[] from = primitive.getFrom();
+        int[] to = primitive.getTo();
+
+        switch (type) {
+            case "line" -> expandLine(from, to, primitive, consumer);
+            case "fill", "hollow", "walls" -> expandBox(from, to, type, primitive, consumer);
+            default -> skippedCount++;
+        }
+    }
+
+    /**
+     * Get number of blocks produced so far
+     */
+    public int getExpandedCount() {
+        return expandedCount;
+    }
+
+    /**
+     * Get number of primitives that were malformed or of an unknown type
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    private void expandBox(int[] from, int[] to, String type, Primitive primitive, BlockSink consumer) {
+        int minX = Math.min(from[0], to[0]), maxX = Math.max(from[0], to[0]);
+        int minY = Math.min(from[1], to[1]), maxY = Math.max(from[1], to[1]);
+        int minZ = Math.min(from[2], to[2]), maxZ = Math.max(from[2], to[2]);
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    boolean side = x == minX || x == maxX || z == minZ || z == maxZ;
+                    boolean include = switch (type) {
+                        case "hollow" -> side || y == minY || y == maxY;
+                        case "walls" -> side;
+                        default -> true;
+                    };
+                    if (include && !emit(x, y, z, primitive, consumer)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void expandLine(int[] from, int[] to, Primitive primitive, BlockSink consumer) {
+        int dx = to[0] - from[0];
+        int dy = to[1] - from[1];
+        int dz = to[2] - from[2];
+        int steps = Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz)));
+
+        for (int i = 0; i <= steps; i++) {
+            double t = steps == 0 ? 0 : (double) i / steps;
+            int x = from[0] + (int) Math.round(dx * t);
+            int y = from[1] + (int) Math.round(dy * t);
+            int z = from[2] + (int) Math.round(dz * t);
+            if (!emit(x, y, z, primitive, consumer)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Emit one block, returning false once the block limit is reached
+     */
+    private boolean emit(int x, int y, int z, Primitive primitive, BlockSink consumer) {
+        if (expandedCount >= maxBlocks) {
+            return false;
+        }
+        expandedCount++;
+        consumer.accept(x, y, z, primitive.getMaterial(), primitive.getData() != null ? primitive.getData() : "");
+        return true;
+    }
+
+    private boolean isPoint(int[] point) {
+        return point != null && point.length >= 3;
+    }
+}
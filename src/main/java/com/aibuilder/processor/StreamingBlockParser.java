@@ -0,0 +1,198 @@
+package com.aibuilder.processor;
+
+import com.aibuilder.model.Primitive;
+import com.aibuilder.model.StructureData;
+import com.google.gson.Gson;
+
+import java.util.function.Consumer;
+
+/**
+ * Incremental parser that emits elements of the "primitives" and "blocks" arrays as soon as each one is complete.
+ * Primitives are expanded into blocks on the fly. Text can be fed in arbitrary fragments,
+ * e.g. as they arrive from a streamed AI response.
+ */
+public class StreamingBlockParser {
+
+    private static final String BLOCKS_KEY = "\"blocks\"";
+    private static final String PRIMITIVES_KEY = "\"primitives\"";
+    private static final int KEY_TAIL = PRIMITIVES_KEY.length();
+
+    private enum State { SEEK_KEY, SEEK_ARRAY, IN_ARRAY }
+
+    private final Gson gson;
+    private final Consumer<StructureData.Block> blockConsumer;
+    private final PrimitiveExpander expander = new PrimitiveExpander();
+    private final StringBuilder pending = new StringBuilder();
+
+    private State state = State.SEEK_KEY;
+    private boolean inPrimitives = false;
+    private int closedArrays = 0;
+    private int scanPos = 0;
+    private int depth = 0;
+    private int objectStart = -1;
+    private boolean inString = false;
+    private boolean escaped = false;
+    private int blockCount = 0;
+    private int skippedCount = 0;
+
+    public StreamingBlockParser(Gson gson, Consumer<StructureData.Block> blockConsumer) {
+        this.gson = gson;
+        this.blockConsumer = blockConsumer;
+    }
+
+    /**
+     * Feed the next fragment of response text
+     */
+    public void feed(CharSequence fragment) {
+        if (fragment == null || fragment.length() == 0) {
+            return;
+        }
+        pending.append(fragment);
+
+        // A response may hold a primitives array and a blocks array, handle them in order
+        while (true) {
+            if (state == State.SEEK_KEY) {
+                int blocksIndex = pending.indexOf(BLOCKS_KEY, scanPos);
+                int primitivesIndex = pending.indexOf(PRIMITIVES_KEY, scanPos);
+                if (blocksIndex < 0 && primitivesIndex < 0) {
+                    // Keep a small tail in case a key is split across fragments
+                    int tailStart = Math.max(0, pending.length() - KEY_TAIL);
+                    pending.delete(0, tailStart);
+                    scanPos = 0;
+                    return;
+                }
+                inPrimitives = primitivesIndex >= 0 && (blocksIndex < 0 || primitivesIndex < blocksIndex);
+                scanPos = inPrimitives ? primitivesIndex + PRIMITIVES_KEY.length() : blocksIndex + BLOCKS_KEY.length();
+                state = State.SEEK_ARRAY;
+            }
+
+            if (state == State.SEEK_ARRAY) {
+                int arrayIndex = pending.indexOf("[", scanPos);
+                if (arrayIndex < 0) {
+                    scanPos = pending.length();
+                    return;
+                }
+                // Everything before the array has been consumed
+                pending.delete(0, arrayIndex + 1);
+                scanPos = 0;
+                state = State.IN_ARRAY;
+            }
+
+            if (!scanArray()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Scan the current array, emitting every complete object. Returns true once the array has been closed.
+     */
+    private boolean scanArray() {
+        int i = scanPos;
+        int consumed = 0;
+
+        for (; i < pending.length(); i++) {
+            char c = pending.charAt(i);
+
+            if (escaped) {
+                escaped = false;
+                continue;
+            }
+            if (inString) {
+                if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                if (depth == 0) {
+                    objectStart = i;
+                }
+                depth++;
+            } else if (c == '}') {
+                depth--;
+                if (depth == 0 && objectStart >= 0) {
+                    emitElement(pending.substring(objectStart, i + 1));
+                    objectStart = -1;
+                    consumed = i + 1;
+                }
+            } else if (c == ']' && depth == 0) {
+                closedArrays++;
+                state = State.SEEK_KEY;
+                pending.delete(0, i + 1);
+                scanPos = 0;
+                return true;
+            }
+        }
+
+        // Drop everything that has already been emitted
+        if (consumed > 0) {
+            pending.delete(0, consumed);
+            if (objectStart >= 0) {
+                objectStart -= consumed;
+            }
+            i -= consumed;
+        }
+        scanPos = i;
+        return false;
+    }
+
+    /**
+     * Parse a single array element and hand its blocks to the consumer
+     */
+    private void emitElement(String json) {
+        try {
+            if (inPrimitives) {
+                Primitive primitive = gson.fromJson(json, Primitive.class);
+                int skippedBefore = expander.getSkippedCount();
+                expander.expand(primitive, this::emitBlock);
+                if (expander.getSkippedCount() > skippedBefore) {
+                    skippedCount++;
+                }
+                return;
+            }
+
+            StructureData.Block block = gson.fromJson(json, StructureData.Block.class);
+            if (block != null && block.getMaterial() != null) {
+                emitBlock(block);
+                return;
+            }
+        } catch (RuntimeException e) {
+            if (e instanceof java.util.concurrent.CancellationException) {
+                throw e;
+            }
+        }
+        skippedCount++;
+    }
+
+    private void emitBlock(StructureData.Block block) {
+        blockCount++;
+        blockConsumer.accept(block);
+    }
+
+    /**
+     * Check if the closing bracket of an array was seen and no other array is still open
+     */
+    public boolean isComplete() {
+        return closedArrays > 0 && state != State.IN_ARRAY;
+    }
+
+    /**
+     * Get number of blocks emitted so far
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Get number of malformed block or primitive objects that were skipped
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+}
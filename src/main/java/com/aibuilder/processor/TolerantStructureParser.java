@@ -0,0 +1,574 @@
+package com.aibuilder.processor;
+
+import com.aibuilder.model.Primitive;
+import com.aibuilder.model.StructureData;
+
+import java.util.function.Consumer;
+
+/**
+ * Single-pass parser for structure JSON as the AI actually writes it. Markdown fences and prose around the
+ * object, comments (//, /* *&#47; and #), trailing commas and a response cut off mid-element are handled in
+ * the same linear scan over the input, without cleaning or copying it first. Blocks are emitted as soon as
+ * their object closes and primitives are expanded on the spot; a malformed element is skipped on its own.
+ * Not thread-safe, use one instance per response.
+ */
+public class TolerantStructureParser {
+
+    /**
+     * Thrown internally when the input ends, no stack trace as it is normal control flow for truncated responses
+     */
+    private static final class EndOfInput extends RuntimeException {
+        private EndOfInput() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final EndOfInput END_OF_INPUT = new EndOfInput();
+    private static final int STRING_CACHE_SIZE = 64;
+
+    private final PrimitiveExpander expander;
+    // Materials repeat constantly, reuse the String instead of allocating one per block
+    private final String[] stringCache = new String[STRING_CACHE_SIZE];
+
+    private CharSequence input;
+    private int pos;
+    private int end;
+    private int spanStart;
+    private int spanEnd;
+    private boolean spanEscaped;
+
+    private String name;
+    private String description;
+    private StructureData.Size size;
+    private boolean foundObject;
+    private boolean truncated;
+    private int blockCount;
+    private int primitiveCount;
+    private int skippedCount;
+
+    public TolerantStructureParser() {
+        this(PrimitiveExpander.DEFAULT_MAX_BLOCKS);
+    }
+
+    public TolerantStructureParser(int maxBlocks) {
+        this.expander = new PrimitiveExpander(maxBlocks);
+    }
+
+    /**
+     * Parse a response into a structure with one block per position, later blocks and primitives
+     * replacing earlier ones in document order. The block list is a view of a BlockBuffer filled directly
+     * by the parser. Returns null if the response holds no JSON object.
+     */
+    public StructureData parse(CharSequence response) {
+        // A block takes about 60 characters of JSON, size the buffer up front instead of growing it
+        BlockMerger merged = new BlockMerger(false, response != null ? response.length() / 60 : 0);
+        parseTo(response, merged::add);
+        if (!foundObject) {
+            return null;
+        }
+
+        StructureData structure = new StructureData();
+        structure.setName(name);
+        structure.setDescription(description);
+        structure.setSize(size);
+        structure.setBlocks(merged.getBlocks());
+        return structure;
+    }
+
+    /**
+     * Parse a response, handing every block to the consumer as soon as it is complete
+     */
+    public void parse(CharSequence response, Consumer<StructureData.Block> consumer) {
+        parseTo(response, (x, y, z, material, data) -> consumer.accept(new StructureData.Block(x, y, z, material, data)));
+    }
+
+    /**
+     * Parse a response, handing the values of every block to the sink as soon as it is complete
+     */
+    public void parseTo(CharSequence response, BlockSink consumer) {
+        this.input = response;
+        this.pos = 0;
+        this.end = response != null ? response.length() : 0;
+
+        int objectStart = findObjectStart();
+        if (objectStart < 0) {
+            return;
+        }
+        foundObject = true;
+        pos = objectStart + 1;
+
+        try {
+            parseRoot(consumer);
+        } catch (EndOfInput e) {
+            truncated = true;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public StructureData.Size getSize() {
+        return size;
+    }
+
+    /**
+     * Check if the input ended before the root object was closed
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Get number of blocks emitted, including blocks expanded from primitives
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Get number of primitives read
+     */
+    public int getPrimitiveCount() {
+        return primitiveCount;
+    }
+
+    /**
+     * Get number of malformed blocks, primitives and array elements that were skipped
+     */
+    public int getSkippedCount() {
+        return skippedCount + expander.getSkippedCount();
+    }
+
+    private void parseRoot(BlockSink consumer) {
+        while (true) {
+            char c = peek();
+            if (c == '}') {
+                pos++;
+                return;
+            }
+            if (!readKey()) {
+                continue;
+            }
+
+            if (keyIs("name")) {
+                name = readString();
+            } else if (keyIs("description")) {
+                description = readString();
+            } else if (keyIs("size")) {
+                readSize();
+            } else if (keyIs("blocks")) {
+                readArray(consumer, false);
+            } else if (keyIs("primitives")) {
+                readArray(consumer, true);
+            } else {
+                skipValue();
+            }
+        }
+    }
+
+    /**
+     * Read an object key and its colon into the current span, skipping separators and stray characters.
+     * Returns false if the next character did not start a key.
+     */
+    private boolean readKey() {
+        char c = peek();
+        if (c != '"') {
+            // Separator, trailing comma or garbage between members
+            pos++;
+            return false;
+        }
+        readSpan();
+        if (peek() == ':') {
+            pos++;
+        }
+        return true;
+    }
+
+    private void readArray(BlockSink consumer, boolean primitives) {
+        if (peek() != '[') {
+            skipValue();
+            return;
+        }
+        pos++;
+
+        while (true) {
+            char c = peek();
+            if (c == ']') {
+                pos++;
+                return;
+            }
+            if (c == ',') {
+                pos++;
+            } else if (c == '{') {
+                if (primitives) {
+                    readPrimitive(consumer);
+                } else {
+                    readBlock(consumer);
+                }
+            } else if (c == '}') {
+                // Unclosed array, leave the brace to the enclosing object
+                return;
+            } else {
+                skippedCount++;
+                skipValue();
+            }
+        }
+    }
+
+    private void readBlock(BlockSink consumer) {
+        pos++;
+        int x = 0, y = 0, z = 0;
+        String material = null;
+        String data = null;
+
+        while (true) {
+            if (peek() == '}') {
+                pos++;
+                break;
+            }
+            if (!readKey()) {
+                continue;
+            }
+            if (keyIs("x")) {
+                x = readInt();
+            } else if (keyIs("y")) {
+                y = readInt();
+            } else if (keyIs("z")) {
+                z = readInt();
+            } else if (keyIs("material")) {
+                material = readString();
+            } else if (keyIs("data")) {
+                data = readString();
+            } else {
+                skipValue();
+            }
+        }
+
+        if (material == null) {
+            skippedCount++;
+            return;
+        }
+        blockCount++;
+        consumer.accept(x, y, z, material, data);
+    }
+
+    private void readPrimitive(BlockSink consumer) {
+        pos++;
+        Primitive primitive = new Primitive();
+
+        while (true) {
+            if (peek() == '}') {
+                pos++;
+                break;
+            }
+            if (!readKey()) {
+                continue;
+            }
+            if (keyIs("type")) {
+                primitive.setType(readString());
+            } else if (keyIs("from")) {
+                primitive.setFrom(readPoint());
+            } else if (keyIs("to")) {
+                primitive.setTo(readPoint());
+            } else if (keyIs("at")) {
+                primitive.setAt(readPoint());
+            } else if (keyIs("material")) {
+                primitive.setMaterial(readString());
+            } else if (keyIs("data")) {
+                primitive.setData(readString());
+            } else {
+                skipValue();
+            }
+        }
+
+        primitiveCount++;
+        int before = expander.getExpandedCount();
+        expander.expandTo(primitive, consumer);
+        blockCount += expander.getExpandedCount() - before;
+    }
+
+    private void readSize() {
+        if (peek() != '{') {
+            skipValue();
+            return;
+        }
+        pos++;
+        StructureData.Size parsed = new StructureData.Size();
+
+        while (true) {
+            if (peek() == '}') {
+                pos++;
+                break;
+            }
+            if (!readKey()) {
+                continue;
+            }
+            if (keyIs("width")) {
+                parsed.setWidth(readInt());
+            } else if (keyIs("height")) {
+                parsed.setHeight(readInt());
+            } else if (keyIs("depth")) {
+                parsed.setDepth(readInt());
+            } else {
+                skipValue();
+            }
+        }
+        size = parsed;
+    }
+
+    /**
+     * Read an [x, y, z] array, or null if the value is not an array of at least three numbers
+     */
+    private int[] readPoint() {
+        if (peek() != '[') {
+            skipValue();
+            return null;
+        }
+        pos++;
+
+        int[] point = new int[3];
+        int count = 0;
+        while (true) {
+            char c = peek();
+            if (c == ']') {
+                pos++;
+                break;
+            }
+            if (c == ',') {
+                pos++;
+            } else if (c == '}') {
+                break;
+            } else {
+                int value = readInt();
+                if (count < 3) {
+                    point[count] = value;
+                }
+                count++;
+            }
+        }
+        return count >= 3 ? point : null;
+    }
+
+    /**
+     * Read a number, truncating any fraction. Quoted numbers are accepted, anything else reads as 0.
+     */
+    private int readInt() {
+        char c = peek();
+        if (c == '"') {
+            readSpan();
+            return parseInt(spanStart, spanEnd);
+        }
+        if (c != '-' && c != '+' && (c < '0' || c > '9')) {
+            skipValue();
+            return 0;
+        }
+
+        int start = pos;
+        while (pos < end && isNumberChar(input.charAt(pos))) {
+            pos++;
+        }
+        if (pos >= end) {
+            // The number itself may be cut off
+            throw END_OF_INPUT;
+        }
+        return parseInt(start, pos);
+    }
+
+    private int parseInt(int start, int stop) {
+        int i = start;
+        boolean negative = false;
+        if (i < stop && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+            negative = input.charAt(i) == '-';
+            i++;
+        }
+        long value = 0;
+        for (; i < stop; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = Math.min(Integer.MAX_VALUE, value * 10 + (c - '0'));
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Read a string value, or null if the value is not a string
+     */
+    private String readString() {
+        if (peek() != '"') {
+            skipValue();
+            return null;
+        }
+        readSpan();
+        return spanEscaped ? decodeSpan() : cachedSpan();
+    }
+
+    /**
+     * Move past a quoted string, recording its content bounds
+     */
+    private void readSpan() {
+        pos++;
+        spanStart = pos;
+        spanEscaped = false;
+        while (pos < end) {
+            char c = input.charAt(pos);
+            if (c == '\\') {
+                spanEscaped = true;
+                pos += 2;
+                continue;
+            }
+            if (c == '"') {
+                spanEnd = pos;
+                pos++;
+                return;
+            }
+            pos++;
+        }
+        throw END_OF_INPUT;
+    }
+
+    private boolean keyIs(String key) {
+        int length = spanEnd - spanStart;
+        if (length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(spanStart + i) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String cachedSpan() {
+        int hash = 0;
+        for (int i = spanStart; i < spanEnd; i++) {
+            hash = 31 * hash + input.charAt(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (STRING_CACHE_SIZE - 1);
+        String cached = stringCache[slot];
+        if (cached != null && keyIs(cached)) {
+            return cached;
+        }
+        String value = input.subSequence(spanStart, spanEnd).toString();
+        stringCache[slot] = value;
+        return value;
+    }
+
+    private String decodeSpan() {
+        StringBuilder builder = new StringBuilder(spanEnd - spanStart);
+        for (int i = spanStart; i < spanEnd; i++) {
+            char c = input.charAt(i);
+            if (c != '\\' || i + 1 >= spanEnd) {
+                builder.append(c);
+                continue;
+            }
+            char escaped = input.charAt(++i);
+            switch (escaped) {
+                case 'n' -> builder.append('\n');
+                case 't' -> builder.append('\t');
+                case 'r' -> builder.append('\r');
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'u' -> {
+                    if (i + 4 < spanEnd) {
+                        builder.append((char) Integer.parseInt(input.subSequence(i + 1, i + 5).toString(), 16));
+                        i += 4;
+                    }
+                }
+                default -> builder.append(escaped);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Skip any value, including nested objects and arrays, stopping at the separator after it
+     */
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            readSpan();
+            return;
+        }
+        if (c != '{' && c != '[') {
+            // Scalar: number, literal or garbage up to the next separator
+            while (pos < end) {
+                c = input.charAt(pos);
+                if (c == ',' || c == '}' || c == ']' || c == '"' || Character.isWhitespace(c)) {
+                    return;
+                }
+                pos++;
+            }
+            throw END_OF_INPUT;
+        }
+
+        int depth = 0;
+        while (true) {
+            c = peek();
+            if (c == '"') {
+                readSpan();
+                continue;
+            }
+            pos++;
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skip whitespace, comments and markdown fence characters, then return the next character
+     */
+    private char peek() {
+        while (pos < end) {
+            char c = input.charAt(pos);
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '`') {
+                pos++;
+            } else if (c == '#') {
+                skipLine();
+            } else if (c == '/' && pos + 1 < end && input.charAt(pos + 1) == '/') {
+                skipLine();
+            } else if (c == '/' && pos + 1 < end && input.charAt(pos + 1) == '*') {
+                pos += 2;
+                while (pos + 1 < end && !(input.charAt(pos) == '*' && input.charAt(pos + 1) == '/')) {
+                    pos++;
+                }
+                pos += 2;
+            } else {
+                return c;
+            }
+        }
+        throw END_OF_INPUT;
+    }
+
+    private void skipLine() {
+        while (pos < end && input.charAt(pos) != '\n') {
+            pos++;
+        }
+    }
+
+    /**
+     * Find the opening brace of the root object, skipping prose and fences before it
+     */
+    private int findObjectStart() {
+        for (int i = 0; i < end; i++) {
+            if (input.charAt(i) == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+}
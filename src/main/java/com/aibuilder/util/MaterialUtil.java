@@ -46,12 +46,37 @@ public class MaterialUtil {
         if (material == Material.TNT || 
             material == Material.LAVA || 
             material == Material.WATER ||
+            material == Material.FIRE ||
+            material == Material.SOUL_FIRE ||
+            material == Material.NETHER_PORTAL ||
+            material == Material.END_PORTAL ||
+            material == Material.END_GATEWAY ||
+            material == Material.STRUCTURE_BLOCK ||
+            material == Material.JIGSAW ||
             material.name().contains("SPAWN") ||
             material.name().contains("COMMAND")) {
             return false;
         }
         
-        return material.isBlock() && material.isSolid();
+        // Air clears space, non-solid blocks such as torches are placed after the blocks holding them
+        return material.isBlock();
+    }
+
+    /**
+     * Check if a block needs a neighbour to stay in place, or takes its shape from its neighbours
+     */
+    public static boolean dependsOnNeighbours(Material material) {
+        if (material.isAir()) {
+            return false;
+        }
+        if (!material.isSolid()) {
+            return true;
+        }
+        String name = material.name();
+        return name.endsWith("_DOOR") || name.endsWith("_TRAPDOOR") || name.endsWith("_STAIRS") ||
+            name.endsWith("_FENCE") || name.endsWith("_FENCE_GATE") || name.endsWith("_WALL") ||
+            name.endsWith("_PANE") || name.endsWith("_BED") || name.endsWith("_BANNER") ||
+            name.endsWith("CHEST") || material == Material.IRON_BARS || material == Material.GLASS_PANE;
     }
 
     /**
@@ -0,0 +1,134 @@
+package com.aibuilder.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from packed block coordinates to int values, without boxing.
+ * Used to find blocks at the same position when merging large structures.
+ */
+public class VoxelMap {
+
+    /**
+     * Returned by get and put when a position has no value
+     */
+    public static final int NONE = -1;
+
+    // Coordinates are packed into 21 bits each, so this key never occurs
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    private int resizeAt;
+
+    public VoxelMap() {
+        this(1024);
+    }
+
+    public VoxelMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Pack block coordinates into one key, each coordinate keeps its low 21 bits
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    public static int unpackX(long key) {
+        return (int) ((key << 1) >> 43);
+    }
+
+    public static int unpackY(long key) {
+        return (int) ((key << 22) >> 43);
+    }
+
+    public static int unpackZ(long key) {
+        return (int) ((key << 43) >> 43);
+    }
+
+    /**
+     * Get the value at a position, or NONE
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return NONE;
+            }
+        }
+    }
+
+    /**
+     * Set the value at a position, returning the previous value or NONE
+     */
+    public int put(long key, int value) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (current == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > resizeAt) {
+                    rehash(keys.length << 1);
+                }
+                return NONE;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Mix the key bits, neighbouring coordinates would otherwise cluster in neighbouring slots
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,55 @@
+package com.aibuilder.test;
+
+import com.aibuilder.model.BlockBuffer;
+import com.aibuilder.model.StructureData;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for columnar block storage
+ */
+public class BlockBufferTest {
+
+    @Test
+    public void testPaletteSharesStatesAndKeepsNullData() {
+        BlockBuffer buffer = new BlockBuffer(2);
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i, 0, 0, "STONE", "");
+        }
+        buffer.add(0, 1, 0, "STONE", null);
+        buffer.add(0, 2, 0, new String("STONE"), "");
+        buffer.add(0, 3, 0, "OAK_STAIRS", "facing=north");
+
+        assertEquals(103, buffer.size());
+        assertEquals(3, buffer.getPaletteSize());
+        assertNull(buffer.getData(100));
+        assertEquals("", buffer.getData(101));
+
+        buffer.setState(5, "GLASS", "");
+        assertEquals("GLASS", buffer.getMaterial(5));
+        assertEquals("STONE", buffer.getMaterial(6));
+    }
+
+    @Test
+    public void testListViewTranslatesAndCopies() {
+        List<StructureData.Block> blocks = Arrays.asList(
+            new StructureData.Block(1, 2, 3, "STONE", ""),
+            new StructureData.Block(4, 5, 6, "OAK_LOG", "axis=y"));
+        BlockBuffer buffer = BlockBuffer.copyOf(blocks);
+        List<StructureData.Block> view = buffer.asList();
+
+        assertEquals(blocks, view);
+        assertSame(buffer, BlockBuffer.unwrap(view));
+        assertNull(BlockBuffer.unwrap(blocks));
+
+        BlockBuffer copy = BlockBuffer.copyOf(view);
+        buffer.translate(10, 0, -10);
+        assertEquals(11, view.get(0).getX());
+        assertEquals(-7, view.get(0).getZ());
+        assertEquals(1, copy.getX(0));
+        assertEquals("axis=y", copy.getData(1));
+    }
+}
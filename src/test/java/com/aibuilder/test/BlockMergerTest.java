@@ -0,0 +1,43 @@
+package com.aibuilder.test;
+
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.BlockMerger;
+import com.aibuilder.util.VoxelMap;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for merging overlapping blocks
+ */
+public class BlockMergerTest {
+
+    @Test
+    public void testVoxelMapGrowsAndKeepsValues() {
+        VoxelMap map = new VoxelMap(16);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(VoxelMap.NONE, map.put(VoxelMap.pack(i % 50, i / 2500, -(i / 50)), i));
+        }
+
+        assertEquals(5000, map.size());
+        assertEquals(1234, map.get(VoxelMap.pack(1234 % 50, 0, -(1234 / 50))));
+        assertEquals(VoxelMap.NONE, map.get(VoxelMap.pack(60, 0, 0)));
+    }
+
+    @Test
+    public void testLastWriterWinsButAirKeepsSolidBlocks() {
+        BlockMerger merger = new BlockMerger(true);
+        StructureData.Block wall = new StructureData.Block(4, 1, 0, "STONE_BRICKS", "");
+        StructureData.Block window = new StructureData.Block(4, 1, 0, "GLASS", "");
+
+        assertTrue(merger.add(new StructureData.Block(4, 1, 0, "STONE", "")));
+        assertTrue(merger.add(wall));
+        assertFalse(merger.add(new StructureData.Block(4, 1, 0, "AIR", "")));
+        assertFalse(merger.add(new StructureData.Block(4, 1, 0, "STONE_BRICKS", "")));
+        assertTrue(merger.add(new StructureData.Block(5, 1, 0, "AIR", "")));
+        assertTrue(merger.add(window));
+
+        assertEquals(2, merger.getBlocks().size());
+        assertEquals(window, merger.getBlocks().get(0));
+        assertEquals(4, merger.getDuplicateCount());
+    }
+}
@@ -0,0 +1,72 @@
+package com.aibuilder.test;
+
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.ChunkStreamMerger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for merging streamed chunks
+ */
+public class ChunkStreamMergerTest {
+
+    private static final int CHUNK_SIZE = 4;
+
+    @Test
+    public void testCellsAreForgottenOnceTheirNeighboursArrived() {
+        ChunkStreamMerger merger = new ChunkStreamMerger(CHUNK_SIZE, 3);
+        List<StructureData.Block> placed = new ArrayList<>();
+
+        merger.addChunk(0, 0, floor(0, 0, "STONE"), placed::add);
+        merger.addChunk(1, 0, floor(1, 0, "STONE"), placed::add);
+        merger.addChunk(2, 0, floor(2, 0, "STONE"), placed::add);
+        merger.addChunk(0, 1, floor(0, 1, "STONE"), placed::add);
+        assertEquals(4, merger.getOpenCellCount());
+
+        // Every chunk around the first one has arrived now
+        merger.addChunk(1, 1, floor(1, 1, "STONE"), placed::add);
+        assertEquals(4, merger.getOpenCellCount());
+        // The first chunk is placed whole, the others only inside their seams
+        assertEquals(CHUNK_SIZE * CHUNK_SIZE + 4 * (CHUNK_SIZE - 2) * (CHUNK_SIZE - 2), placed.size());
+    }
+
+    @Test
+    public void testSeamPositionsArePlacedOnceAsMerged() {
+        ChunkStreamMerger merger = new ChunkStreamMerger(CHUNK_SIZE, 2);
+        Map<String, String> placed = new HashMap<>();
+        Consumer<StructureData.Block> placer = block ->
+            assertNull("placed twice", placed.put(block.getX() + "," + block.getY() + "," + block.getZ(), block.getMaterial()));
+
+        merger.addChunk(0, 0, floor(0, 0, "STONE"), placer);
+        // The next chunk reaches one block into its neighbour: a window over the stone and air padding next to it
+        List<StructureData.Block> east = floor(1, 0, "STONE");
+        east.add(new StructureData.Block(3, 0, 1, "GLASS", ""));
+        east.add(new StructureData.Block(3, 0, 2, "AIR", ""));
+        merger.addChunk(1, 0, east, placer);
+        merger.addChunk(0, 1, floor(0, 1, "STONE"), placer);
+        merger.addChunk(1, 1, floor(1, 1, "STONE"), placer);
+
+        assertEquals(4 * CHUNK_SIZE * CHUNK_SIZE, placed.size());
+        assertEquals("GLASS", placed.get("3,0,1"));
+        assertEquals("STONE", placed.get("3,0,2"));
+        assertEquals(2, merger.getDuplicateCount());
+        assertEquals(0, merger.getOpenCellCount());
+    }
+
+    private List<StructureData.Block> floor(int chunkX, int chunkZ, String material) {
+        List<StructureData.Block> blocks = new ArrayList<>();
+        for (int x = 0; x < CHUNK_SIZE; x++) {
+            for (int z = 0; z < CHUNK_SIZE; z++) {
+                blocks.add(new StructureData.Block(chunkX * CHUNK_SIZE + x, 0, chunkZ * CHUNK_SIZE + z, material, ""));
+            }
+        }
+        return blocks;
+    }
+}
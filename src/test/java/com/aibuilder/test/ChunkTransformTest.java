@@ -0,0 +1,42 @@
+package com.aibuilder.test;
+
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.ChunkTransform;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for rotating and mirroring reused chunk designs
+ */
+public class ChunkTransformTest {
+
+    @Test
+    public void testQuarterTurnRotatesPositionAndFacing() {
+        List<StructureData.Block> blocks = new ChunkTransform(1).apply(Arrays.asList(
+            new StructureData.Block(2, 5, 0, "OAK_STAIRS", "facing=north,half=bottom"),
+            new StructureData.Block(0, 1, 0, "OAK_LOG", "axis=x")), 8);
+
+        StructureData.Block stairs = blocks.get(0);
+        assertEquals(7, stairs.getX());
+        assertEquals(5, stairs.getY());
+        assertEquals(2, stairs.getZ());
+        assertEquals("facing=east,half=bottom", stairs.getData());
+        assertEquals("axis=z", blocks.get(1).getData());
+    }
+
+    @Test
+    public void testFullTurnAndIdentityKeepBlocks() {
+        StructureData.Block block = new StructureData.Block(3, 0, 6, "OAK_DOOR", "facing=west");
+
+        assertTrue(new ChunkTransform(0).isIdentity());
+        assertTrue(new ChunkTransform(ChunkTransform.VARIANTS).isIdentity());
+
+        StructureData.Block mirrored = new ChunkTransform(4).apply(Arrays.asList(block), 8).get(0);
+        assertEquals(4, mirrored.getX());
+        assertEquals(6, mirrored.getZ());
+        assertEquals("facing=east", mirrored.getData());
+    }
+}
@@ -0,0 +1,138 @@
+package com.aibuilder.test;
+
+import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.manager.RequestScheduler;
+import com.aibuilder.model.StructureData;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * End-to-end load test against MockGeminiServer: simulated players each request structures one after another
+ * through AIManager, and some request large structures through ChunkedGenerationManager.
+ * Reports latency percentiles, throughput, and peak thread and heap usage. Not part of the unit tests, run with
+ * arguments such as: players=50 requests=4 latency=300 errors=0.05 ratelimit=0.05 truncation=0.1 chunked=0.1
+ */
+public class GeminiLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        int players = Integer.parseInt(options.getOrDefault("players", "20"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "5"));
+        int latency = Integer.parseInt(options.getOrDefault("latency", "200"));
+        double errors = Double.parseDouble(options.getOrDefault("errors", "0.02"));
+        double rateLimits = Double.parseDouble(options.getOrDefault("ratelimit", "0.02"));
+        double truncation = Double.parseDouble(options.getOrDefault("truncation", "0.05"));
+        double chunked = Double.parseDouble(options.getOrDefault("chunked", "0.1"));
+        // Far above real quota by default, so the harness measures the plugin rather than the rate limiter
+        int requestsPerMinute = Integer.parseInt(options.getOrDefault("rpm", "6000"));
+
+        try (MockGeminiServer server = new MockGeminiServer()) {
+            server.addFixture("cottage").addFixture("watchtower")
+                .route("Create a brief plan", "plan")
+                .withLatency(latency / 2, latency).withErrorRate(errors).withRateLimitRate(rateLimits).withTruncationRate(truncation);
+            server.start();
+
+            File dataFolder = Files.createTempDirectory("aibuilder-load").toFile();
+            Map<String, Object> settings = new HashMap<>();
+            settings.put("gemini.api-key", "load-test");
+            settings.put("gemini.base-url", server.getBaseUrl());
+            settings.put("gemini.rate-limit.requests-per-minute", requestsPerMinute);
+            settings.put("gemini.rate-limit.max-queued", players * 4);
+            // Every request must reach the server
+            settings.put("cache.enabled", false);
+            settings.put("building.chunk-journal.enabled", false);
+            AIStructureBuilder plugin = MockPlugin.create(dataFolder, settings, Level.SEVERE);
+
+            System.out.printf("Load test: %d players x %d requests, latency %d-%d ms, %.0f%% errors, %.0f%% 429s, %.0f%% truncated, %.0f%% chunked%n",
+                players, requests, latency / 2, latency, errors * 100, rateLimits * 100, truncation * 100, chunked * 100);
+            run(plugin, server, players, requests, chunked);
+            MockPlugin.shutdown(plugin);
+        }
+    }
+
+    private static void run(AIStructureBuilder plugin, MockGeminiServer server, int players, int requests, double chunked) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        AtomicLong peakHeap = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+            0, 50, TimeUnit.MILLISECONDS);
+
+        Queue<Long> singleLatencies = new ConcurrentLinkedQueue<>();
+        Queue<Long> chunkedLatencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger fallbacks = new AtomicInteger();
+        Random random = new Random(42);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> sessions = new ArrayList<>();
+        for (int player = 0; player < players; player++) {
+            UUID requester = UUID.randomUUID();
+            CompletableFuture<Void> session = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < requests; i++) {
+                boolean large = random.nextDouble() < chunked;
+                String description = (large ? "castle" : "cottage") + " " + player + "-" + i;
+                session = session.thenCompose(ignored -> {
+                    long requestStart = System.nanoTime();
+                    CompletableFuture<StructureData> generation = large
+                        ? plugin.getAiManager().getChunkedManager().generateLargeStructure(description, 2000, requester,
+                            RequestScheduler.Priority.BUILD, message -> {})
+                        : plugin.getAiManager().generateStructureWithProgress(description, 500, requester,
+                            RequestScheduler.Priority.BUILD, message -> {});
+                    return generation.handle((structure, error) -> {
+                        (large ? chunkedLatencies : singleLatencies).add(System.nanoTime() - requestStart);
+                        if (error != null || structure == null || structure.isFallback()) {
+                            fallbacks.incrementAndGet();
+                        }
+                        return null;
+                    });
+                });
+            }
+            sessions.add(session);
+        }
+        CompletableFuture.allOf(sessions.toArray(new CompletableFuture[0])).join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        sampler.shutdownNow();
+
+        report("single", singleLatencies);
+        report("chunked", chunkedLatencies);
+        System.out.printf("  throughput %.1f structures/s over %.1f s, %d fallbacks%n",
+            (singleLatencies.size() + chunkedLatencies.size()) / elapsed, elapsed, fallbacks.get());
+        System.out.printf("  server     %d calls, %d errors, %d rate limited, %d truncated%n", server.getRequestCount(),
+            server.getServerErrorCount(), server.getRateLimitedCount(), server.getTruncatedCount());
+        System.out.printf("  threads    %d before, %d peak   heap peak %d MB%n", threadsBefore, threads.getPeakThreadCount(),
+            peakHeap.get() / (1024 * 1024));
+    }
+
+    private static void report(String label, Queue<Long> latencies) {
+        if (latencies.isEmpty()) {
+            return;
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("  %-10s %4d requests   p50 %6d ms   p95 %6d ms   p99 %6d ms%n", label, sorted.length,
+            percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, Math.min(sorted.length - 1, index))]);
+    }
+}
@@ -0,0 +1,269 @@
+package com.aibuilder.test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Gemini API. Serves generateContent and streamGenerateContent by replaying recorded
+ * responses from src/test/resources/gemini, with configurable latency, server errors, 429s and truncation,
+ * so the plugin can be load-tested without using real quota. Point gemini.base-url at getBaseUrl().
+ */
+public class MockGeminiServer implements Closeable {
+
+    private static final int STREAM_FRAGMENT_LENGTH = 256;
+
+    private final MockWebServer server = new MockWebServer();
+    private final Gson gson = new Gson();
+    private final List<JsonObject> fixtures = new ArrayList<>();
+    // Prompt substring to the recorded response served for it
+    private final Map<String, JsonObject> routes = new LinkedHashMap<>();
+    private final AtomicInteger nextFixture = new AtomicInteger();
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger serverErrorCount = new AtomicInteger();
+    private final AtomicInteger rateLimitedCount = new AtomicInteger();
+    private final AtomicInteger truncatedCount = new AtomicInteger();
+
+    private volatile int minLatencyMillis = 0;
+    private volatile int maxLatencyMillis = 0;
+    private volatile double errorRate = 0;
+    private volatile double rateLimitRate = 0;
+    private volatile double truncationRate = 0;
+
+    public MockGeminiServer() {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request);
+            }
+        });
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    /**
+     * Get the URL to use as gemini.base-url
+     */
+    public String getBaseUrl() {
+        return server.url("/v1beta/models/").toString();
+    }
+
+    /**
+     * Delay each response by a random time in the range
+     */
+    public MockGeminiServer withLatency(int minMillis, int maxMillis) {
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = Math.max(minMillis, maxMillis);
+        return this;
+    }
+
+    /**
+     * Answer this share of requests with 503 UNAVAILABLE
+     */
+    public MockGeminiServer withErrorRate(double rate) {
+        this.errorRate = rate;
+        return this;
+    }
+
+    /**
+     * Answer this share of requests with 429 RESOURCE_EXHAUSTED
+     */
+    public MockGeminiServer withRateLimitRate(double rate) {
+        this.rateLimitRate = rate;
+        return this;
+    }
+
+    /**
+     * Cut off this share of responses at 60% of their text with finish reason MAX_TOKENS
+     */
+    public MockGeminiServer withTruncationRate(double rate) {
+        this.truncationRate = rate;
+        return this;
+    }
+
+    /**
+     * Add a recorded response, fixtures are served in turn to requests without a matching route
+     */
+    public MockGeminiServer addFixture(String name) {
+        fixtures.add(loadFixture(name));
+        return this;
+    }
+
+    /**
+     * Serve a recorded response to every request whose prompt contains the text
+     */
+    public MockGeminiServer route(String promptContains, String name) {
+        routes.put(promptContains, loadFixture(name));
+        return this;
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public int getServerErrorCount() {
+        return serverErrorCount.get();
+    }
+
+    public int getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    public int getTruncatedCount() {
+        return truncatedCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        requestCount.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        MockResponse response = new MockResponse();
+        if (maxLatencyMillis > 0) {
+            response.setHeadersDelay(random.nextInt(minLatencyMillis, maxLatencyMillis + 1), TimeUnit.MILLISECONDS);
+        }
+
+        if (random.nextDouble() < rateLimitRate) {
+            rateLimitedCount.incrementAndGet();
+            return response.setResponseCode(429)
+                .setBody(createError(429, "RESOURCE_EXHAUSTED", "Resource has been exhausted (e.g. check quota)."));
+        }
+        if (random.nextDouble() < errorRate) {
+            serverErrorCount.incrementAndGet();
+            return response.setResponseCode(503)
+                .setBody(createError(503, "UNAVAILABLE", "The model is overloaded. Please try again later."));
+        }
+
+        JsonObject requestJson = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject();
+        JsonObject recorded = select(extractPrompt(requestJson));
+        if (random.nextDouble() < truncationRate) {
+            truncatedCount.incrementAndGet();
+            recorded = truncate(recorded, requestJson);
+        }
+
+        String path = request.getPath() != null ? request.getPath() : "";
+        if (path.contains(":streamGenerateContent")) {
+            return response.setHeader("Content-Type", "text/event-stream").setBody(createEventStream(recorded));
+        }
+        return response.setHeader("Content-Type", "application/json").setBody(gson.toJson(recorded));
+    }
+
+    private JsonObject select(String prompt) {
+        for (Map.Entry<String, JsonObject> route : routes.entrySet()) {
+            if (prompt.contains(route.getKey())) {
+                return route.getValue();
+            }
+        }
+        if (fixtures.isEmpty()) {
+            throw new IllegalStateException("No fixture for prompt: " + prompt);
+        }
+        return fixtures.get(Math.floorMod(nextFixture.getAndIncrement(), fixtures.size()));
+    }
+
+    /**
+     * Copy a recorded response with its text cut off, as Gemini returns it when maxOutputTokens is reached
+     */
+    private JsonObject truncate(JsonObject recorded, JsonObject requestJson) {
+        JsonObject copy = recorded.deepCopy();
+        JsonObject candidate = copy.getAsJsonArray("candidates").get(0).getAsJsonObject();
+        JsonArray parts = candidate.getAsJsonObject("content").getAsJsonArray("parts");
+        String text = parts.get(0).getAsJsonObject().get("text").getAsString();
+        parts.get(0).getAsJsonObject().addProperty("text", text.substring(0, text.length() * 6 / 10));
+        candidate.addProperty("finishReason", "MAX_TOKENS");
+
+        if (requestJson.has("generationConfig") && copy.has("usageMetadata")) {
+            int maxTokens = requestJson.getAsJsonObject("generationConfig").get("maxOutputTokens").getAsInt();
+            copy.getAsJsonObject("usageMetadata").addProperty("candidatesTokenCount", maxTokens);
+        }
+        return copy;
+    }
+
+    /**
+     * Split a recorded response into server-sent events, the last one carrying finish reason and usage
+     */
+    private String createEventStream(JsonObject recorded) {
+        JsonObject candidate = recorded.getAsJsonArray("candidates").get(0).getAsJsonObject();
+        String text = candidate.getAsJsonObject("content").getAsJsonArray("parts").get(0).getAsJsonObject().get("text").getAsString();
+
+        StringBuilder events = new StringBuilder();
+        for (int start = 0; start < text.length(); start += STREAM_FRAGMENT_LENGTH) {
+            boolean last = start + STREAM_FRAGMENT_LENGTH >= text.length();
+            JsonObject part = new JsonObject();
+            part.addProperty("text", text.substring(start, Math.min(text.length(), start + STREAM_FRAGMENT_LENGTH)));
+            JsonArray parts = new JsonArray();
+            parts.add(part);
+            JsonObject content = new JsonObject();
+            content.add("parts", parts);
+            content.addProperty("role", "model");
+
+            JsonObject fragment = new JsonObject();
+            fragment.add("content", content);
+            if (last && candidate.has("finishReason")) {
+                fragment.add("finishReason", candidate.get("finishReason"));
+            }
+            JsonArray candidates = new JsonArray();
+            candidates.add(fragment);
+            JsonObject event = new JsonObject();
+            event.add("candidates", candidates);
+            if (last && recorded.has("usageMetadata")) {
+                event.add("usageMetadata", recorded.get("usageMetadata"));
+            }
+            events.append("data: ").append(gson.toJson(event)).append("\r\n\r\n");
+        }
+        return events.toString();
+    }
+
+    private String extractPrompt(JsonObject requestJson) {
+        try {
+            return requestJson.getAsJsonArray("contents").get(0).getAsJsonObject()
+                .getAsJsonArray("parts").get(0).getAsJsonObject().get("text").getAsString();
+        } catch (RuntimeException e) {
+            return "";
+        }
+    }
+
+    private String createError(int code, String status, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        error.addProperty("status", status);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+        return gson.toJson(body);
+    }
+
+    private JsonObject loadFixture(String name) {
+        try (InputStream input = MockGeminiServer.class.getResourceAsStream("/gemini/" + name + ".json")) {
+            if (input == null) {
+                throw new IllegalArgumentException("Unknown Gemini fixture: " + name);
+            }
+            return JsonParser.parseString(new String(input.readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.aibuilder.test;
+
+import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.manager.BlockStream;
+import com.aibuilder.manager.RequestScheduler;
+import com.aibuilder.model.GeminiResponse;
+import com.aibuilder.model.StructureData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Smoke tests running the plugin's generation path against the local Gemini stand-in
+ */
+public class MockGeminiServerTest {
+
+    @Rule
+    public TemporaryFolder dataFolder = new TemporaryFolder();
+
+    private MockGeminiServer server;
+    private AIStructureBuilder plugin;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockGeminiServer().addFixture("cottage");
+        server.start();
+
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("gemini.api-key", "test");
+        settings.put("gemini.base-url", server.getBaseUrl());
+        settings.put("cache.enabled", false);
+        plugin = MockPlugin.create(dataFolder.getRoot(), settings, Level.OFF);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        MockPlugin.shutdown(plugin);
+        server.close();
+    }
+
+    @Test
+    public void testGenerateStructureThroughStandIn() throws Exception {
+        StructureData structure = plugin.getAiManager().generateStructure("small cottage", 500).get(30, TimeUnit.SECONDS);
+
+        assertFalse(structure.isFallback());
+        assertEquals("Cottage", structure.getName());
+        assertTrue(structure.getBlocks().size() > 120);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testIdenticalStreamsShareOneRequestPerPriority() throws Exception {
+        BlockStream first = new BlockStream(10000);
+        BlockStream second = new BlockStream(10000);
+        BlockStream preview = new BlockStream(10000);
+        CompletableFuture<StructureData> firstResult = plugin.getAiManager().generateStructureStreaming("small cottage", 500,
+            null, RequestScheduler.Priority.BUILD, first, progress -> { });
+        CompletableFuture<StructureData> secondResult = plugin.getAiManager().generateStructureStreaming("small cottage", 500,
+            null, RequestScheduler.Priority.BUILD, second, progress -> { });
+        CompletableFuture<StructureData> previewResult = plugin.getAiManager().generateStructureStreaming("small cottage", 500,
+            null, RequestScheduler.Priority.PREVIEW, preview, progress -> { });
+
+        firstResult.get(30, TimeUnit.SECONDS);
+        secondResult.get(30, TimeUnit.SECONDS);
+        previewResult.get(30, TimeUnit.SECONDS);
+        assertEquals(2, server.getRequestCount());
+        assertTrue(first.getReceivedCount() > 120);
+        assertEquals(first.getReceivedCount(), second.getReceivedCount());
+        assertEquals(first.getReceivedCount(), preview.getReceivedCount());
+    }
+
+    @Test
+    public void testStreamingAndTruncatedResponsesFollowFixture() throws Exception {
+        StringBuilder streamed = new StringBuilder();
+        plugin.getGeminiTransport().streamGenerateContentAsync("small cottage", streamed::append).get(30, TimeUnit.SECONDS);
+        GeminiResponse complete = plugin.getGeminiTransport().generateContentDetailedAsync("small cottage").get(30, TimeUnit.SECONDS);
+        assertEquals(complete.getText(), streamed.toString());
+        assertFalse(complete.isTruncated());
+
+        server.withTruncationRate(1.0);
+        GeminiResponse truncated = plugin.getGeminiTransport().generateContentDetailedAsync("small cottage").get(30, TimeUnit.SECONDS);
+        assertTrue(truncated.isTruncated());
+        assertEquals(complete.getText().substring(0, complete.getText().length() * 6 / 10), truncated.getText());
+        assertEquals(1, server.getTruncatedCount());
+    }
+
+    @Test
+    public void testStreamIsReadOnIoPoolAndFailsWhenTruncated() throws Exception {
+        StringBuilder threads = new StringBuilder();
+        plugin.getGeminiTransport().streamGenerateContentAsync("small cottage",
+            fragment -> threads.append(Thread.currentThread().getName()).append('\n')).get(30, TimeUnit.SECONDS);
+        for (String thread : threads.toString().split("\n")) {
+            assertTrue(thread, thread.startsWith("aibuilder-io-"));
+        }
+
+        server.withTruncationRate(1.0);
+        try {
+            plugin.getGeminiTransport().streamGenerateContentAsync("small cottage", fragment -> { }).get(30, TimeUnit.SECONDS);
+            fail("Truncated stream completed normally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+}
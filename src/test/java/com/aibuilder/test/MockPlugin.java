@@ -0,0 +1,80 @@
+package com.aibuilder.test;
+
+import com.aibuilder.AIStructureBuilder;
+import com.aibuilder.manager.AIManager;
+import com.aibuilder.manager.ConfigManager;
+import com.aibuilder.manager.ExecutorManager;
+import com.aibuilder.manager.GeminiTransport;
+import com.aibuilder.manager.RequestScheduler;
+import com.aibuilder.manager.RetryScheduler;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Wires the plugin's real managers to a mocked plugin instance, so generation can run outside a server
+ */
+public final class MockPlugin {
+
+    private MockPlugin() {
+    }
+
+    /**
+     * Create a plugin using the bundled config.yml with the given settings applied on top
+     */
+    public static AIStructureBuilder create(File dataFolder, Map<String, Object> settings, Level logLevel) {
+        YamlConfiguration config;
+        try (Reader reader = new InputStreamReader(MockPlugin.class.getResourceAsStream("/config.yml"), StandardCharsets.UTF_8)) {
+            config = YamlConfiguration.loadConfiguration(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        settings.forEach(config::set);
+
+        Logger logger = Logger.getLogger("AIStructureBuilder");
+        logger.setLevel(logLevel);
+
+        AIStructureBuilder plugin = mock(AIStructureBuilder.class);
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getLogger()).thenReturn(logger);
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+
+        // Same order as onEnable, each manager reads the ones before it in its constructor
+        ConfigManager configManager = new ConfigManager(plugin);
+        configManager.loadConfig();
+        when(plugin.getConfigManager()).thenReturn(configManager);
+        ExecutorManager executorManager = new ExecutorManager(plugin);
+        when(plugin.getExecutorManager()).thenReturn(executorManager);
+        GeminiTransport transport = new GeminiTransport(plugin);
+        when(plugin.getGeminiTransport()).thenReturn(transport);
+        RequestScheduler requestScheduler = new RequestScheduler(plugin);
+        when(plugin.getRequestScheduler()).thenReturn(requestScheduler);
+        RetryScheduler retryScheduler = new RetryScheduler(plugin);
+        when(plugin.getRetryScheduler()).thenReturn(retryScheduler);
+        AIManager aiManager = new AIManager(plugin);
+        when(plugin.getAiManager()).thenReturn(aiManager);
+        aiManager.updateConfiguration();
+        return plugin;
+    }
+
+    /**
+     * Stop the plugin's schedulers, connections and threads, as onDisable does
+     */
+    public static void shutdown(AIStructureBuilder plugin) {
+        plugin.getRetryScheduler().shutdown();
+        plugin.getRequestScheduler().shutdown();
+        plugin.getGeminiTransport().shutdown();
+        plugin.getExecutorManager().shutdown();
+    }
+}
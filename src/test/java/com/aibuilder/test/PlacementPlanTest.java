@@ -0,0 +1,93 @@
+package com.aibuilder.test;
+
+import com.aibuilder.manager.BlockDataCache;
+import com.aibuilder.manager.PlacementPlan;
+import com.aibuilder.model.StructureData;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ordering and placing compiled blocks
+ */
+public class PlacementPlanTest {
+
+    private World world;
+    private Map<String, Block> placed;
+
+    @Before
+    public void setUp() {
+        world = mock(World.class);
+        placed = new HashMap<>();
+        when(world.getBlockAt(anyInt(), anyInt(), anyInt())).thenAnswer(invocation ->
+            placed.computeIfAbsent(invocation.getArgument(0) + "," + invocation.getArgument(1) + "," + invocation.getArgument(2),
+                key -> mock(Block.class)));
+    }
+
+    @Test
+    public void testAttachedBlocksArePlacedLastWithPhysics() {
+        List<StructureData.Block> blocks = Arrays.asList(
+            new StructureData.Block(0, 1, 0, "TORCH", ""),
+            new StructureData.Block(0, 0, 0, "STONE", ""));
+
+        PlacementPlan plan = placeAll(blocks, true);
+
+        assertEquals(2, plan.size());
+        Block stone = placed.get("0,64,0");
+        Block torch = placed.get("0,65,0");
+        InOrder order = inOrder(stone, torch);
+        order.verify(stone).setType(Material.STONE, false);
+        order.verify(torch).setType(Material.TORCH, true);
+    }
+
+    @Test
+    public void testUnorderedPlanUsesPhysicsForEveryBlock() {
+        List<StructureData.Block> blocks = Arrays.asList(
+            new StructureData.Block(0, 1, 0, "TORCH", ""),
+            new StructureData.Block(0, 0, 0, "STONE", ""));
+
+        placeAll(blocks, false);
+
+        verify(placed.get("0,65,0")).setType(Material.TORCH, true);
+        verify(placed.get("0,64,0")).setType(Material.STONE, true);
+    }
+
+    @Test
+    public void testLastBlockAtPositionWinsOverPhaseOrder() {
+        // The fallback structure cuts its door opening by writing air over planks
+        List<StructureData.Block> blocks = Arrays.asList(
+            new StructureData.Block(1, 1, 0, "OAK_PLANKS", ""),
+            new StructureData.Block(2, 1, 0, "OAK_PLANKS", ""),
+            new StructureData.Block(1, 1, 0, "AIR", ""));
+
+        PlacementPlan plan = placeAll(blocks, true);
+
+        assertEquals(2, plan.size());
+        Block opening = placed.get("1,65,0");
+        verify(opening).setType(Material.AIR, false);
+        verify(opening, never()).setType(eq(Material.OAK_PLANKS), anyBoolean());
+        verify(placed.get("2,65,0")).setType(Material.OAK_PLANKS, false);
+    }
+
+    private PlacementPlan placeAll(List<StructureData.Block> blocks, boolean ordered) {
+        PlacementPlan.Palette palette = new PlacementPlan.Palette(new BlockDataCache(Logger.getLogger("test")));
+        PlacementPlan plan = PlacementPlan.compile(blocks, new Location(world, 0, 64, 0), palette, ordered);
+        for (int i = 0; i < plan.size(); i++) {
+            plan.place(i);
+        }
+        return plan;
+    }
+}
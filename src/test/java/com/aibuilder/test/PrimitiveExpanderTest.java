@@ -0,0 +1,67 @@
+package com.aibuilder.test;
+
+import com.aibuilder.model.Primitive;
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.PrimitiveExpander;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for expanding shape primitives into blocks
+ */
+public class PrimitiveExpanderTest {
+
+    @Test
+    public void testFillExpandsWholeCuboid() {
+        List<StructureData.Block> blocks = new PrimitiveExpander().expand(Arrays.asList(
+            new Primitive("fill", new int[]{0, 0, 0}, new int[]{2, 1, 3}, "STONE")));
+
+        assertEquals(3 * 2 * 4, blocks.size());
+    }
+
+    @Test
+    public void testHollowAndWallsLeaveInsideEmpty() {
+        List<StructureData.Block> hollow = new PrimitiveExpander().expand(Arrays.asList(
+            new Primitive("hollow", new int[]{0, 0, 0}, new int[]{2, 2, 2}, "STONE")));
+        List<StructureData.Block> walls = new PrimitiveExpander().expand(Arrays.asList(
+            new Primitive("walls", new int[]{0, 0, 0}, new int[]{2, 2, 2}, "STONE")));
+
+        assertEquals(27 - 1, hollow.size());
+        assertEquals(3 * 8, walls.size());
+    }
+
+    @Test
+    public void testLaterPrimitivesOverrideEarlierBlocks() {
+        Primitive door = new Primitive();
+        door.setType("block");
+        door.setAt(new int[]{1, 0, 0});
+        door.setMaterial("AIR");
+
+        StructureData structure = new StructureData();
+        structure.setPrimitives(Arrays.asList(
+            new Primitive("line", new int[]{0, 0, 0}, new int[]{2, 0, 0}, "OAK_PLANKS"), door));
+        structure.setBlocks(new ArrayList<>());
+        new PrimitiveExpander().expandInto(structure);
+
+        assertEquals(3, structure.getBlocks().size());
+        assertNull(structure.getPrimitives());
+        assertTrue(structure.getBlocks().stream()
+            .anyMatch(block -> block.getX() == 1 && "AIR".equals(block.getMaterial())));
+    }
+
+    @Test
+    public void testBlockLimitAndMalformedPrimitives() {
+        PrimitiveExpander expander = new PrimitiveExpander(10);
+        List<StructureData.Block> blocks = expander.expand(Arrays.asList(
+            new Primitive("fill", new int[]{0, 0, 0}, new int[]{99, 99, 99}, "STONE"),
+            new Primitive("sphere", new int[]{0, 0, 0}, new int[]{1, 1, 1}, "STONE"),
+            new Primitive("fill", null, new int[]{1, 1, 1}, "STONE")));
+
+        assertEquals(10, blocks.size());
+        assertEquals(2, expander.getSkippedCount());
+    }
+}
@@ -0,0 +1,47 @@
+package com.aibuilder.test;
+
+import com.aibuilder.model.StructureData;
+import com.aibuilder.processor.TolerantStructureParser;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the single-pass tolerant structure parser
+ */
+public class TolerantStructureParserTest {
+
+    @Test
+    public void testHandlesFencesCommentsAndTrailingCommas() {
+        String response = "Sure! Here it is:\n```json\n{\n" +
+            "  // the name\n" +
+            "  \"name\": \"Hut\", /* size follows */\n" +
+            "  \"size\": {\"width\": 3, \"height\": 2, \"depth\": 3,},\n" +
+            "  \"primitives\": [{\"type\": \"fill\", \"from\": [0,0,0], \"to\": [2,0,2], \"material\": \"STONE\"},],\n" +
+            "  \"blocks\": [{\"x\": 1, \"y\": 0, \"z\": 1, \"material\": \"GLASS\", \"data\": \"\"},],\n" +
+            "}\n```\nHave fun!";
+
+        TolerantStructureParser parser = new TolerantStructureParser();
+        StructureData structure = parser.parse(response);
+
+        assertNotNull(structure);
+        assertEquals("Hut", structure.getName());
+        assertEquals(3, structure.getSize().getWidth());
+        assertEquals(9, structure.getBlocks().size());
+        assertFalse(parser.isTruncated());
+        assertTrue(structure.getBlocks().stream().anyMatch(block -> block.getMaterial().equals("GLASS")));
+    }
+
+    @Test
+    public void testKeepsCompleteBlocksOfTruncatedResponse() {
+        String response = "{\"name\": \"Wall\", \"blocks\": [" +
+            "{\"x\": 0, \"y\": 0, \"z\": 0, \"material\": \"STONE\"}," +
+            "{\"x\": 1, \"y\": 0, \"z\": 0, \"material\": \"STO";
+
+        TolerantStructureParser parser = new TolerantStructureParser();
+        StructureData structure = parser.parse(response);
+
+        assertTrue(parser.isTruncated());
+        assertEquals(1, structure.getBlocks().size());
+        assertNull(new TolerantStructureParser().parse("no json here"));
+    }
+}